@@ -0,0 +1,234 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.bson.Document;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.result.UpdateResult;
+import com.tinkerpop.blueprints.Direction;
+
+/**
+ * Adjacency lists embedded in the vertex documents. Each vertex carries the
+ * edges it is the out vertex of in {@link MongoDBConstants#FIELD_OUT_EDGES}
+ * and the ones it is the in vertex of in {@link MongoDBConstants#FIELD_IN_EDGES},
+ * as <code>{id, label, vertex}</code> entries where <code>vertex</code> is the
+ * id of the other end. A list holds at most <code>maxEmbeddedEdges</code>
+ * entries; the rest spill into bucket documents of the same size in the
+ * <code>&lt;vertexCollection&gt;Adjacency</code> collection:
+ * <pre>
+ * {vertex: 1, direction: "OUT", count: 2, edges: [{id: 7, label: "knows", vertex: 2}, ...]}
+ * </pre>
+ * A hop from a vertex with no overflow then costs a single read by id
+ * instead of a query on the edge collection. The lists are maintained by
+ * {@link MongoDBGraph#addEdge(Object, com.tinkerpop.blueprints.Vertex, com.tinkerpop.blueprints.Vertex, String)}
+ * and {@link MongoDBElement#remove()}; edges stored before the lists were
+ * enabled are not in them.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBAdjacencyLists {
+    public static final int DEFAULT_MAX_EMBEDDED_EDGES = 100;
+    
+    private final MongoDBGraph graph;
+    private final int maxEmbeddedEdges;
+    private final MongoCollection<Document> bucketCollection;
+    
+    public MongoDBAdjacencyLists(final MongoDBGraph graph, final int maxEmbeddedEdges) {
+        if (maxEmbeddedEdges < 1) {
+            throw new IllegalArgumentException("maxEmbeddedEdges must be positive.");
+        }
+        this.graph = graph;
+        this.maxEmbeddedEdges = maxEmbeddedEdges;
+        this.bucketCollection = graph.getRawGraph().getCollection(graph.getVertexCollection().getNamespace().getCollectionName() + MongoDBConstants.ADJACENCY_COLLECTION_SUFFIX);
+        this.bucketCollection.createIndex(new Document(MongoDBConstants.FIELD_VERTEX, Integer.valueOf(1)).append(MongoDBConstants.FIELD_DIRECTION, Integer.valueOf(1)));
+    }
+    
+    /**
+     * Adds an edge to the lists of both of its vertices.
+     * 
+     * @param edgeId
+     * @param label
+     * @param outVertexId
+     * @param inVertexId
+     */
+    public void addEdge(final Object edgeId, final String label, final Object outVertexId, final Object inVertexId) {
+        append(outVertexId, Direction.OUT, entry(edgeId, label, inVertexId));
+        append(inVertexId, Direction.IN, entry(edgeId, label, outVertexId));
+    }
+    
+    /**
+     * Removes an edge from the lists of both of its vertices.
+     * 
+     * @param edgeId
+     * @param outVertexId
+     * @param inVertexId
+     */
+    public void removeEdge(final Object edgeId, final Object outVertexId, final Object inVertexId) {
+        remove(outVertexId, Direction.OUT, edgeId);
+        remove(inVertexId, Direction.IN, edgeId);
+    }
+    
+    /**
+     * Drops the overflow buckets of a removed vertex.
+     * 
+     * @param vertexId
+     */
+    public void removeVertex(final Object vertexId) {
+        bucketCollection.deleteMany(new Document(MongoDBConstants.FIELD_VERTEX, vertexId));
+    }
+    
+    /**
+     * @param vertexId
+     * @param direction
+     * @param labels
+     * @return the ids of the edges of the vertex with one of the labels
+     */
+    public Set<Object> edgeIds(final Object vertexId, final Direction direction, final String... labels) {
+        Set<Object> ids = new LinkedHashSet<Object>();
+        for (Document entry : entries(vertexId, direction, labels)) {
+            ids.add(entry.get(MongoDBConstants.FIELD_ID));
+        }
+        return ids;
+    }
+    
+    /**
+     * @param vertexId
+     * @param direction
+     * @param labels
+     * @return the ids of the vertices at the other end of the edges of the vertex with one of the labels
+     */
+    public Set<Object> vertexIds(final Object vertexId, final Direction direction, final String... labels) {
+        Set<Object> ids = new LinkedHashSet<Object>();
+        for (Document entry : entries(vertexId, direction, labels)) {
+            ids.add(entry.get(MongoDBConstants.FIELD_VERTEX));
+        }
+        return ids;
+    }
+    
+    public int getMaxEmbeddedEdges() {
+        return this.maxEmbeddedEdges;
+    }
+    
+    public MongoCollection<Document> getBucketCollection() {
+        return this.bucketCollection;
+    }
+    
+    /**
+     * Pushes the entry into the list of the vertex if there is room left,
+     * otherwise into a bucket with room left, which is created if needed.
+     */
+    private void append(final Object vertexId, final Direction direction, final Document entry) {
+        Document hasRoom = new Document(MongoDBConstants.FIELD_ID, vertexId)
+                .append(countField(direction), new Document("$not", new Document("$gte", Integer.valueOf(maxEmbeddedEdges))));
+        UpdateResult result = graph.getVertexCollection().updateOne(hasRoom,
+                new Document("$push", new Document(listField(direction), entry))
+                .append("$inc", new Document(countField(direction), Integer.valueOf(1))));
+        if (result.getMatchedCount() > 0) {
+            return;
+        }
+        
+        // Readers only look for buckets once the vertex is flagged
+        graph.getVertexCollection().updateOne(new Document(MongoDBConstants.FIELD_ID, vertexId),
+                new Document("$set", new Document(spilledField(direction), Boolean.TRUE)));
+        bucketCollection.updateOne(new Document(MongoDBConstants.FIELD_VERTEX, vertexId)
+                .append(MongoDBConstants.FIELD_DIRECTION, direction.name())
+                .append(MongoDBConstants.FIELD_COUNT, new Document("$lt", Integer.valueOf(maxEmbeddedEdges))),
+                new Document("$push", new Document(MongoDBConstants.FIELD_EDGES, entry))
+                .append("$inc", new Document(MongoDBConstants.FIELD_COUNT, Integer.valueOf(1))),
+                new UpdateOptions().upsert(true));
+    }
+    
+    private void remove(final Object vertexId, final Direction direction, final Object edgeId) {
+        Document pullEdge = new Document(MongoDBConstants.FIELD_ID, edgeId);
+        UpdateResult result = graph.getVertexCollection().updateOne(new Document(MongoDBConstants.FIELD_ID, vertexId)
+                .append(listField(direction) + "." + MongoDBConstants.FIELD_ID, edgeId),
+                new Document("$pull", new Document(listField(direction), pullEdge))
+                .append("$inc", new Document(countField(direction), Integer.valueOf(-1))));
+        if (result.getMatchedCount() == 0) {
+            bucketCollection.updateOne(new Document(MongoDBConstants.FIELD_VERTEX, vertexId)
+                    .append(MongoDBConstants.FIELD_DIRECTION, direction.name())
+                    .append(MongoDBConstants.FIELD_EDGES + "." + MongoDBConstants.FIELD_ID, edgeId),
+                    new Document("$pull", new Document(MongoDBConstants.FIELD_EDGES, pullEdge))
+                    .append("$inc", new Document(MongoDBConstants.FIELD_COUNT, Integer.valueOf(-1))));
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private List<Document> entries(final Object vertexId, final Direction direction, final String... labels) {
+        List<Document> entries = new ArrayList<Document>();
+        List<Direction> directions = direction.equals(Direction.BOTH) ? Arrays.asList(Direction.OUT, Direction.IN) : Arrays.asList(direction);
+        
+        Document projection = new Document();
+        for (Direction d : directions) {
+            projection.append(listField(d), Integer.valueOf(1)).append(spilledField(d), Integer.valueOf(1));
+        }
+        Document vertex = graph.getVertexCollection().find(new Document(MongoDBConstants.FIELD_ID, vertexId)).projection(projection).first();
+        if (vertex == null) {
+            return entries;
+        }
+        
+        List<String> wanted = Arrays.asList(labels);
+        for (Direction d : directions) {
+            List<Document> embedded = (List<Document>) vertex.get(listField(d));
+            if (embedded != null) {
+                addWithLabel(entries, embedded, wanted);
+            }
+            if (Boolean.TRUE.equals(vertex.get(spilledField(d)))) {
+                for (Document bucket : bucketCollection.find(new Document(MongoDBConstants.FIELD_VERTEX, vertexId).append(MongoDBConstants.FIELD_DIRECTION, d.name()))) {
+                    addWithLabel(entries, (List<Document>) bucket.get(MongoDBConstants.FIELD_EDGES), wanted);
+                }
+            }
+        }
+        return entries;
+    }
+    
+    private static void addWithLabel(final List<Document> entries, final List<Document> candidates, final List<String> labels) {
+        for (Document entry : candidates) {
+            if (labels.contains(entry.getString(MongoDBConstants.FIELD_LABEL))) {
+                entries.add(entry);
+            }
+        }
+    }
+    
+    private static Document entry(final Object edgeId, final String label, final Object otherVertexId) {
+        return new Document(MongoDBConstants.FIELD_ID, edgeId)
+                .append(MongoDBConstants.FIELD_LABEL, label)
+                .append(MongoDBConstants.FIELD_VERTEX, otherVertexId);
+    }
+    
+    private static String listField(final Direction direction) {
+        return direction.equals(Direction.OUT) ? MongoDBConstants.FIELD_OUT_EDGES : MongoDBConstants.FIELD_IN_EDGES;
+    }
+    
+    private static String countField(final Direction direction) {
+        return direction.equals(Direction.OUT) ? MongoDBConstants.FIELD_OUT_EDGE_COUNT : MongoDBConstants.FIELD_IN_EDGE_COUNT;
+    }
+    
+    private static String spilledField(final Direction direction) {
+        return direction.equals(Direction.OUT) ? MongoDBConstants.FIELD_OUT_EDGES_SPILLED : MongoDBConstants.FIELD_IN_EDGES_SPILLED;
+    }
+}
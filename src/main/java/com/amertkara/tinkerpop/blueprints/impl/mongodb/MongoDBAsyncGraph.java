@@ -0,0 +1,389 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import org.bson.Document;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.util.ElementHelper;
+import com.tinkerpop.blueprints.util.ExceptionFactory;
+
+/**
+ * Non-blocking companion of a {@link MongoDBGraph}, built on the Reactive
+ * Streams driver. The edges of a vertex can be streamed as a
+ * {@link Publisher}, honouring the demand of its subscriber; lookups,
+ * adjacency and mutations return {@link CompletableFuture}s adapted from the
+ * driver's publishers and completed on its threads, so many concurrent calls
+ * can be in flight without parking a thread each.
+ * <p>
+ * It works on the collections, element cache and edge format of the given
+ * graph, and the elements it returns are ordinary {@link MongoDBVertex} and
+ * {@link MongoDBEdge} instances of that graph; calling their blocking
+ * methods blocks. The writes are sent right away: they do not go through the
+ * write-behind buffer or a transaction, and they are not supported when
+ * adjacency lists are enabled. Ids of the added elements come from the
+ * graph's {@link MongoDBIdAllocator}, which blocks once per block of ids with
+ * the default allocator.
+ * <p>
+ * Following Blueprints, adjacency is that of <code>vertex.query()</code>: OUT
+ * is the edges the vertex is the out vertex of, and no label means any label.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBAsyncGraph {
+    private final MongoDBGraph graph;
+    private final MongoDatabase database;
+    
+    /**
+     * @param graph
+     * @param mongoClient a Reactive Streams client connected to the same deployment as the graph
+     */
+    public MongoDBAsyncGraph(final MongoDBGraph graph, final MongoClient mongoClient) {
+        this.graph = graph;
+        this.database = mongoClient.getDatabase(graph.getRawGraph().getName());
+    }
+    
+    /**
+     * @param id
+     * @return the vertex, completed with null if it doesn't exist
+     */
+    public CompletableFuture<MongoDBVertex> getVertex(final Object id) {
+        if (id == null) {
+            throw ExceptionFactory.vertexIdCanNotBeNull();
+        }
+        MongoDBElementCache<MongoDBVertex> cache = graph.getVertexCache();
+        MongoDBVertex cached = cache == null ? null : cache.get(id);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        
+        return first(getVertexCollection().find(new Document(MongoDBConstants.FIELD_ID, id)).first()).thenApply(document -> {
+            if (document == null) {
+                return null;
+            }
+            MongoDBVertex vertex = new MongoDBVertex(document, graph);
+            if (graph.getVertexCache() != null) {
+                graph.getVertexCache().put(vertex);
+            }
+            return vertex;
+        });
+    }
+    
+    /**
+     * @param id
+     * @return the edge, completed with null if it doesn't exist
+     */
+    public CompletableFuture<MongoDBEdge> getEdge(final Object id) {
+        if (id == null) {
+            throw ExceptionFactory.edgeIdCanNotBeNull();
+        }
+        MongoDBElementCache<MongoDBEdge> cache = graph.getEdgeCache();
+        MongoDBEdge cached = cache == null ? null : cache.get(id);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        
+        return first(getEdgeCollection().find(new Document(MongoDBConstants.FIELD_ID, id)).first()).thenApply(document -> {
+            if (document == null) {
+                return null;
+            }
+            MongoDBEdge edge = new MongoDBEdge(document, graph);
+            if (graph.getEdgeCache() != null) {
+                graph.getEdgeCache().put(edge);
+            }
+            return edge;
+        });
+    }
+    
+    /**
+     * Streams the edges of a vertex, they are fetched as the subscriber
+     * requests them.
+     * 
+     * @param vertexId
+     * @param direction
+     * @param labels
+     * @return the edges of the vertex
+     */
+    public Publisher<MongoDBEdge> edges(final Object vertexId, final Direction direction, final String... labels) {
+        return map(getEdgeCollection().find(adjacentEdgesQuery(vertexId, direction, labels)), document -> new MongoDBEdge(document, graph));
+    }
+    
+    /**
+     * @param vertexId
+     * @param direction
+     * @param labels
+     * @return the edges of the vertex
+     */
+    public CompletableFuture<List<MongoDBEdge>> getEdges(final Object vertexId, final Direction direction, final String... labels) {
+        return toList(edges(vertexId, direction, labels));
+    }
+    
+    /**
+     * @param vertexId
+     * @param direction
+     * @param labels
+     * @return the distinct vertices at the other end of the edges of the vertex
+     */
+    public CompletableFuture<List<MongoDBVertex>> getVertices(final Object vertexId, final Direction direction, final String... labels) {
+        Publisher<Document> found = getEdgeCollection().find(adjacentEdgesQuery(vertexId, direction, labels))
+                .projection(new Document(MongoDBConstants.FIELD_MONGO_ID, Integer.valueOf(0))
+                        .append(MongoDBConstants.FIELD_OUTV, Integer.valueOf(1))
+                        .append(MongoDBConstants.FIELD_INV, Integer.valueOf(1)));
+        
+        return toList(found).thenCompose(edges -> {
+            Set<Object> ids = new LinkedHashSet<Object>();
+            for (Document edge : edges) {
+                Object outId = MongoDBGraph.endpointId(edge.get(MongoDBConstants.FIELD_OUTV));
+                Object inId = MongoDBGraph.endpointId(edge.get(MongoDBConstants.FIELD_INV));
+                if (direction.equals(Direction.OUT)) {
+                    ids.add(inId);
+                } else if (direction.equals(Direction.IN) || !outId.equals(vertexId)) {
+                    ids.add(outId);
+                } else {
+                    ids.add(inId);
+                }
+            }
+            
+            if (ids.isEmpty()) {
+                return CompletableFuture.completedFuture(new ArrayList<Document>());
+            }
+            return toList(getVertexCollection().find(new Document(MongoDBConstants.FIELD_ID, new Document("$in", new ArrayList<Object>(ids)))));
+        }).thenApply(documents -> {
+            List<MongoDBVertex> vertices = new ArrayList<MongoDBVertex>(documents.size());
+            for (Document document : documents) {
+                vertices.add(new MongoDBVertex(document, graph));
+            }
+            return vertices;
+        });
+    }
+    
+    /**
+     * @param id the id of the vertex, allocated if null
+     * @return the added vertex
+     */
+    public CompletableFuture<MongoDBVertex> addVertex(final Object id) {
+        final Document vertex = new Document(MongoDBConstants.FIELD_ID, id == null ? graph.getIdAllocator().nextId(graph.getVertexCollection().getNamespace().getCollectionName()) : id);
+        return first(getVertexCollection().insertOne(vertex)).thenApply(ignored -> new MongoDBVertex(vertex, graph));
+    }
+    
+    /**
+     * @param id the id of the edge, allocated if null
+     * @param outVertexId
+     * @param inVertexId
+     * @param label
+     * @return the added edge
+     */
+    public CompletableFuture<MongoDBEdge> addEdge(final Object id, final Object outVertexId, final Object inVertexId, final String label) {
+        if (label == null) {
+            throw ExceptionFactory.edgeLabelCanNotBeNull();
+        }
+        checkWritable();
+        final Document edge = new Document(MongoDBConstants.FIELD_ID, id == null ? graph.getIdAllocator().nextId(graph.getEdgeCollection().getNamespace().getCollectionName()) : id)
+                .append(MongoDBConstants.FIELD_LABEL, label)
+                .append(MongoDBConstants.FIELD_OUTV, graph.endpointValue(outVertexId))
+                .append(MongoDBConstants.FIELD_INV, graph.endpointValue(inVertexId));
+        return first(getEdgeCollection().insertOne(edge)).thenApply(ignored -> new MongoDBEdge(edge, graph));
+    }
+    
+    /**
+     * Stores a property of an element, the element is updated once it is stored.
+     * 
+     * @param element
+     * @param key
+     * @param value
+     * @return completed when the property is stored
+     */
+    public CompletableFuture<Void> setProperty(final MongoDBElement element, final String key, final Object value) {
+        ElementHelper.validateProperty(element, key, value);
+        return first(collectionOf(element).updateOne(element.idFilter(), new Document("$set", new Document(MongoDBGraph.propertyField(key), value)))).thenAccept(ignored -> element.applyProperty(key, value));
+    }
+    
+    /**
+     * Removes a property of an element, the element is updated once it is removed.
+     * 
+     * @param element
+     * @param key
+     * @return the removed value, completed with null if there was none
+     */
+    public <T> CompletableFuture<T> removeProperty(final MongoDBElement element, final String key) {
+        final T removedProperty = element.getProperty(key);
+        if (removedProperty == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return first(collectionOf(element).updateOne(element.idFilter(), new Document("$unset", new Document(MongoDBGraph.propertyField(key), "")))).thenApply(ignored -> {
+            element.applyPropertyRemoval(key);
+            return removedProperty;
+        });
+    }
+    
+    /**
+     * @param element
+     * @return completed when the element is deleted
+     */
+    public CompletableFuture<Void> remove(final MongoDBElement element) {
+        checkWritable();
+        return first(collectionOf(element).deleteOne(element.idFilter())).thenAccept(ignored -> graph.cacheRemoved(element));
+    }
+    
+    public MongoCollection<Document> getVertexCollection() {
+        return this.database.getCollection(graph.getVertexCollection().getNamespace().getCollectionName());
+    }
+    
+    public MongoCollection<Document> getEdgeCollection() {
+        return this.database.getCollection(graph.getEdgeCollection().getNamespace().getCollectionName());
+    }
+    
+    private MongoCollection<Document> collectionOf(final MongoDBElement element) {
+        return element instanceof MongoDBVertex ? getVertexCollection() : getEdgeCollection();
+    }
+    
+    private Document adjacentEdgesQuery(final Object vertexId, final Direction direction, final String... labels) {
+        Document query;
+        if (direction.equals(Direction.OUT)) {
+            query = new Document(MongoDBConstants.FIELD_OUTV, graph.endpointFilter(vertexId));
+        } else if (direction.equals(Direction.IN)) {
+            query = new Document(MongoDBConstants.FIELD_INV, graph.endpointFilter(vertexId));
+        } else {
+            query = new Document("$or", Arrays.asList(
+                    new Document(MongoDBConstants.FIELD_OUTV, graph.endpointFilter(vertexId)),
+                    new Document(MongoDBConstants.FIELD_INV, graph.endpointFilter(vertexId))));
+        }
+        if (labels.length > 0) {
+            query.append(MongoDBConstants.FIELD_LABEL, new Document("$in", Arrays.asList(labels)));
+        }
+        return query;
+    }
+    
+    private void checkWritable() {
+        if (graph.getAdjacencyLists() != null) {
+            throw new IllegalStateException("Edges cannot be added or removed asynchronously while adjacency lists are enabled.");
+        }
+    }
+    
+    /**
+     * @param publisher
+     * @return completed with the first item of the publisher, null if it has none
+     */
+    private static <T> CompletableFuture<T> first(final Publisher<T> publisher) {
+        return toList(publisher).thenApply(items -> items.isEmpty() ? null : items.get(0));
+    }
+    
+    /**
+     * Requests all the items of a publisher.
+     * 
+     * @param publisher
+     * @return completed with the items once the publisher completes
+     */
+    private static <T> CompletableFuture<List<T>> toList(final Publisher<T> publisher) {
+        final CompletableFuture<List<T>> future = new CompletableFuture<List<T>>();
+        publisher.subscribe(new Subscriber<T>() {
+            private final List<T> items = new ArrayList<T>();
+            
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+            
+            @Override
+            public void onNext(T item) {
+                items.add(item);
+            }
+            
+            @Override
+            public void onError(Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+            
+            @Override
+            public void onComplete() {
+                future.complete(items);
+            }
+        });
+        return future;
+    }
+    
+    /**
+     * Applies a function to the items of a publisher, the demand of the
+     * subscriber is passed on as it is. A failing function cancels the
+     * subscription and fails the subscriber.
+     * 
+     * @param publisher
+     * @param function
+     * @return the mapped publisher
+     */
+    private static <T, R> Publisher<R> map(final Publisher<T> publisher, final Function<? super T, ? extends R> function) {
+        return subscriber -> publisher.subscribe(new Subscriber<T>() {
+            private Subscription subscription;
+            private boolean done;
+            
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                this.subscription = subscription;
+                subscriber.onSubscribe(subscription);
+            }
+            
+            @Override
+            public void onNext(T item) {
+                if (done) {
+                    return;
+                }
+                R mapped;
+                try {
+                    mapped = function.apply(item);
+                } catch (RuntimeException re) {
+                    done = true;
+                    subscription.cancel();
+                    subscriber.onError(re);
+                    return;
+                }
+                subscriber.onNext(mapped);
+            }
+            
+            @Override
+            public void onError(Throwable throwable) {
+                if (!done) {
+                    done = true;
+                    subscriber.onError(throwable);
+                }
+            }
+            
+            @Override
+            public void onComplete() {
+                if (!done) {
+                    done = true;
+                    subscriber.onComplete();
+                }
+            }
+        });
+    }
+}
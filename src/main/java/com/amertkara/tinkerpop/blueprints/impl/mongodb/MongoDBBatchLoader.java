@@ -0,0 +1,229 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.tinkerpop.blueprints.util.ExceptionFactory;
+
+/**
+ * Bulk loader for a {@link MongoDBGraph}, in the spirit of Blueprints'
+ * <code>BatchGraph</code>. Vertex and edge documents are buffered in memory
+ * and written with one <code>bulkWrite</code> per collection every
+ * <code>batchSize</code> elements, instead of one round trip per element.
+ * <p>
+ * Vertices are added with the id used in the source data (e.g. a line number
+ * or a key in a CSV file). The loader allocates the stored id through the
+ * graph's {@link MongoDBIdAllocator} and keeps the mapping in memory, so edges
+ * can be added with the source ids of their endpoints.
+ * <p>
+ * Nothing is visible in the graph before the buffer is flushed, either when it
+ * is full or on {@link #flush()}/{@link #close()}. In unordered mode the
+ * server keeps on writing the rest of a batch after a failed write. The loader
+ * is not thread safe.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBBatchLoader {
+    private static final Logger logger = LoggerFactory.getLogger(MongoDBBatchLoader.class.getName());
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    
+    private final MongoDBGraph graph;
+    private final int batchSize;
+    private final boolean ordered;
+    private final String vertexCollection;
+    private final String edgeCollection;
+    
+    private final Map<Object, Object> vertexIds = new HashMap<Object, Object>();
+    private final Map<Object, Document> pendingVertices = new HashMap<Object, Document>();
+    private final Map<Object, Document> pendingEdges = new HashMap<Object, Document>();
+    private final List<WriteModel<Document>> vertexWrites = new ArrayList<WriteModel<Document>>();
+    private final List<WriteModel<Document>> edgeWrites = new ArrayList<WriteModel<Document>>();
+    
+    public MongoDBBatchLoader(final MongoDBGraph graph) {
+        this(graph, DEFAULT_BATCH_SIZE, true);
+    }
+    
+    public MongoDBBatchLoader(final MongoDBGraph graph, final int batchSize, final boolean ordered) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive.");
+        }
+        if (graph.getAdjacencyLists() != null) {
+            throw new IllegalStateException("Edges written in bulk are not added to the adjacency lists.");
+        }
+        this.graph = graph;
+        this.batchSize = batchSize;
+        this.ordered = ordered;
+        this.vertexCollection = graph.getVertexCollection().getNamespace().getCollectionName();
+        this.edgeCollection = graph.getEdgeCollection().getNamespace().getCollectionName();
+    }
+    
+    /**
+     * Buffers a new vertex.
+     * 
+     * @param externalId the id of the vertex in the source data
+     * @return the id the vertex is stored with
+     */
+    public Object addVertex(final Object externalId) {
+        if (externalId == null) {
+            throw ExceptionFactory.vertexIdCanNotBeNull();
+        }
+        if (vertexIds.containsKey(externalId)) {
+            throw ExceptionFactory.vertexWithIdAlreadyExists(externalId);
+        }
+        
+        Object id = graph.getIdAllocator().nextId(vertexCollection);
+        Document vertex = new Document(MongoDBConstants.FIELD_ID, id)
+                .append(MongoDBConstants.FIELD_PROPERTIES, new Document());
+        
+        vertexIds.put(externalId, id);
+        pendingVertices.put(id, vertex);
+        vertexWrites.add(new InsertOneModel<Document>(vertex));
+        flushIfFull();
+        
+        return id;
+    }
+    
+    /**
+     * Buffers a new edge between two vertices added through this loader.
+     * 
+     * @param outExternalId the source id of the out vertex
+     * @param inExternalId the source id of the in vertex
+     * @param label
+     * @return the id the edge is stored with
+     */
+    public Object addEdge(final Object outExternalId, final Object inExternalId, final String label) {
+        if (label == null) {
+            throw ExceptionFactory.edgeLabelCanNotBeNull();
+        }
+        
+        Object id = graph.getIdAllocator().nextId(edgeCollection);
+        Document edge = new Document(MongoDBConstants.FIELD_ID, id)
+                .append(MongoDBConstants.FIELD_LABEL, label)
+                .append(MongoDBConstants.FIELD_OUTV, graph.endpointValue(getVertexId(outExternalId)))
+                .append(MongoDBConstants.FIELD_INV, graph.endpointValue(getVertexId(inExternalId)))
+                .append(MongoDBConstants.FIELD_PROPERTIES, new Document());
+        
+        pendingEdges.put(id, edge);
+        edgeWrites.add(new InsertOneModel<Document>(edge));
+        flushIfFull();
+        
+        return id;
+    }
+    
+    /**
+     * Sets a property of a vertex added through this loader. Properties of a
+     * vertex which hasn't been flushed yet go into its insert.
+     * 
+     * @param externalId the source id of the vertex
+     * @param key
+     * @param value
+     */
+    public void setVertexProperty(final Object externalId, final String key, final Object value) {
+        setProperty(getVertexId(externalId), key, value, pendingVertices, vertexWrites);
+    }
+    
+    /**
+     * Sets a property of an edge added through this loader.
+     * 
+     * @param id the id returned by {@link #addEdge(Object, Object, String)}
+     * @param key
+     * @param value
+     */
+    public void setEdgeProperty(final Object id, final String key, final Object value) {
+        setProperty(id, key, value, pendingEdges, edgeWrites);
+    }
+    
+    /**
+     * @param externalId the source id of the vertex
+     * @return the id the vertex is stored with
+     */
+    public Object getVertexId(final Object externalId) {
+        Object id = vertexIds.get(externalId);
+        if (id == null) {
+            throw ExceptionFactory.vertexWithIdDoesNotExist(externalId);
+        }
+        return id;
+    }
+    
+    /**
+     * Writes the buffered vertices, then the buffered edges.
+     */
+    public void flush() {
+        write(graph.getVertexCollection(), vertexWrites);
+        write(graph.getEdgeCollection(), edgeWrites);
+        pendingVertices.clear();
+        pendingEdges.clear();
+    }
+    
+    /**
+     * Flushes the remaining elements and forgets the id mapping.
+     */
+    public void close() {
+        flush();
+        vertexIds.clear();
+    }
+    
+    private void setProperty(final Object id, final String key, final Object value,
+            final Map<Object, Document> pending, final List<WriteModel<Document>> writes) {
+        if (key == null || key.isEmpty() || key.equals(MongoDBConstants.FIELD_ID)) {
+            throw ExceptionFactory.propertyKeyCanNotBeEmpty();
+        }
+        
+        Document element = pending.get(id);
+        if (element != null) {
+            ((Document) element.get(MongoDBConstants.FIELD_PROPERTIES)).put(key, value);
+        } else {
+            writes.add(new UpdateOneModel<Document>(
+                    new Document(MongoDBConstants.FIELD_ID, id),
+                    new Document("$set", new Document(MongoDBConstants.FIELD_PROPERTIES + "." + key, value))));
+            flushIfFull();
+        }
+    }
+    
+    private void flushIfFull() {
+        if (vertexWrites.size() + edgeWrites.size() >= batchSize) {
+            flush();
+        }
+    }
+    
+    private void write(final MongoCollection<Document> collection, final List<WriteModel<Document>> writes) {
+        if (writes.isEmpty()) {
+            return;
+        }
+        try {
+            collection.bulkWrite(writes, new BulkWriteOptions().ordered(ordered));
+            logger.debug(writes.size() + " writes are flushed to " + collection.getNamespace());
+        } finally {
+            writes.clear();
+        }
+    }
+}
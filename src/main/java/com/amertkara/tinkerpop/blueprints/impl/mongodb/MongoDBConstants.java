@@ -24,10 +24,53 @@ package com.amertkara.tinkerpop.blueprints.impl.mongodb;
 public class MongoDBConstants {
     public static final String DEFAULT_EDGE_COLLECTION = "edgeCollection";
     public static final String DEFAULT_VERTEX_COLLECTION = "vertexCollection";
+    public static final String DEFAULT_COUNTER_COLLECTION = "counterCollection";
+    public static final String DEFAULT_METADATA_COLLECTION = "metadataCollection";
     
     public static final String FIELD_ID = "id";
     public static final String FIELD_LABEL = "label";
     public static final String FIELD_PROPERTIES = "properties";
     public static final String FIELD_INV = "inv";
     public static final String FIELD_OUTV = "outv";
+    public static final String FIELD_MONGO_ID = "_id";
+    public static final String FIELD_SEQUENCE = "seq";
+    public static final String FIELD_INDEXED_KEYS = "indexedKeys";
+    public static final String FIELD_EDGE_FORMAT = "edgeFormat";
+    public static final String FIELD_OUT_EDGES = "oute";
+    public static final String FIELD_IN_EDGES = "ine";
+    public static final String FIELD_OUT_EDGE_COUNT = "outeCount";
+    public static final String FIELD_IN_EDGE_COUNT = "ineCount";
+    public static final String FIELD_OUT_EDGES_SPILLED = "outeSpilled";
+    public static final String FIELD_IN_EDGES_SPILLED = "ineSpilled";
+    public static final String FIELD_VERTEX = "vertex";
+    public static final String FIELD_DIRECTION = "direction";
+    public static final String FIELD_EDGES = "edges";
+    public static final String FIELD_COUNT = "count";
+    public static final String FIELD_DEPTH = "depth";
+    
+    /**
+     * Appended to the vertex collection name to get the collection of the
+     * adjacency list overflow buckets.
+     */
+    public static final String ADJACENCY_COLLECTION_SUFFIX = "Adjacency";
+    
+    /**
+     * Separates the tenant from the collection name in the collections of a
+     * tenant graph, e.g. <code>acme.vertexCollection</code>.
+     */
+    public static final String TENANT_SEPARATOR = ".";
+    
+    public static final String INDEX_PARAMETER_BACKGROUND = "background";
+    public static final String INDEX_PARAMETER_UNIQUE = "unique";
+    
+    /**
+     * Cursor batch size used by the element iterables, 0 lets the driver decide.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 0;
+    
+    /**
+     * Number of elements loading their properties together in lazy mode,
+     * when the batch size is left to the driver.
+     */
+    public static final int DEFAULT_LAZY_PAGE_SIZE = 100;
 }
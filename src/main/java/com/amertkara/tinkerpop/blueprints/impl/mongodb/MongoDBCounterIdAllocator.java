@@ -0,0 +1,150 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.bson.Document;
+
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOptions;
+
+/**
+ * Allocates numeric ids from blocks reserved in a counter document per
+ * collection. A block is reserved with a single atomic
+ * <code>findOneAndUpdate</code>/<code>$inc</code>, then handed out without
+ * any locking or server work until it is used up. Since every JVM reserves
+ * its own blocks, ids never collide across writers, though they are not
+ * strictly sequential.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBCounterIdAllocator implements MongoDBIdAllocator {
+    public static final int DEFAULT_BLOCK_SIZE = 1000;
+    
+    private final MongoDatabase database;
+    private final String counterCollection;
+    private final int blockSize;
+    private final ConcurrentMap<String, AtomicReference<IdBlock>> blocks = new ConcurrentHashMap<String, AtomicReference<IdBlock>>();
+    
+    public MongoDBCounterIdAllocator(final MongoDatabase database) {
+        this(database, MongoDBConstants.DEFAULT_COUNTER_COLLECTION, DEFAULT_BLOCK_SIZE);
+    }
+    
+    public MongoDBCounterIdAllocator(final MongoDatabase database, final String counterCollection, final int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be positive.");
+        }
+        this.database = database;
+        this.counterCollection = counterCollection;
+        this.blockSize = blockSize;
+    }
+    
+    /* (non-Javadoc)
+     * @see com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBIdAllocator#nextId(java.lang.String)
+     */
+    @Override
+    public Object nextId(final String collectionName) {
+        AtomicReference<IdBlock> current = blocks.get(collectionName);
+        if (current == null) {
+            AtomicReference<IdBlock> created = new AtomicReference<IdBlock>(IdBlock.EMPTY);
+            current = blocks.putIfAbsent(collectionName, created);
+            if (current == null) {
+                current = created;
+            }
+        }
+        
+        while (true) {
+            IdBlock block = current.get();
+            long id = block.next.getAndIncrement();
+            if (id <= block.last) {
+                return Long.valueOf(id);
+            }
+            synchronized (current) {
+                // Only one thread goes to the server, the others retry on the new block
+                if (current.get() == block) {
+                    current.set(reserve(collectionName, block == IdBlock.EMPTY));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Reserves the next block of ids for the collection.
+     * 
+     * @param collectionName
+     * @param first whether this is the first block reserved by this allocator
+     * @return IdBlock
+     */
+    private IdBlock reserve(final String collectionName, final boolean first) {
+        if (first) {
+            seed(collectionName);
+        }
+        
+        Document counter = this.database.getCollection(counterCollection).findOneAndUpdate(
+                new Document(MongoDBConstants.FIELD_MONGO_ID, collectionName),
+                new Document("$inc", new Document(MongoDBConstants.FIELD_SEQUENCE, Long.valueOf(blockSize))),
+                new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+        long last = ((Number) counter.get(MongoDBConstants.FIELD_SEQUENCE)).longValue();
+        
+        return new IdBlock(last - blockSize + 1, last);
+    }
+    
+    /**
+     * Makes sure the counter is not behind the ids already stored in the
+     * collection, e.g. the ones inserted with explicit ids or before the
+     * counter existed. Uses the index on {@link MongoDBConstants#FIELD_ID}.
+     * 
+     * @param collectionName
+     */
+    private void seed(final String collectionName) {
+        // Range queries only match numbers, so other id types are skipped
+        Document last = this.database.getCollection(collectionName)
+                .find(new Document(MongoDBConstants.FIELD_ID, new Document("$gte", Long.valueOf(Long.MIN_VALUE))))
+                .sort(new Document(MongoDBConstants.FIELD_ID, Integer.valueOf(-1)))
+                .limit(1)
+                .first();
+        long max = last == null ? 0L : ((Number) last.get(MongoDBConstants.FIELD_ID)).longValue();
+        
+        this.database.getCollection(counterCollection).updateOne(
+                new Document(MongoDBConstants.FIELD_MONGO_ID, collectionName),
+                new Document("$max", new Document(MongoDBConstants.FIELD_SEQUENCE, Long.valueOf(max))),
+                new UpdateOptions().upsert(true));
+    }
+    
+    /**
+     * A reserved range of ids, [next, last].
+     */
+    private static final class IdBlock {
+        static final IdBlock EMPTY = new IdBlock(1L, 0L);
+        
+        final AtomicLong next;
+        final long last;
+        
+        IdBlock(final long first, final long last) {
+            this.next = new AtomicLong(first);
+            this.last = last;
+        }
+    }
+}
@@ -17,13 +17,10 @@
  */
 package com.amertkara.tinkerpop.blueprints.impl.mongodb;
 
-import java.util.NoSuchElementException;
-
 import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.mongodb.DBRef;
 import com.mongodb.client.MongoCollection;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
@@ -36,6 +33,7 @@ import com.tinkerpop.blueprints.util.ExceptionFactory;
  */
 public class MongoDBEdge extends MongoDBElement implements Edge {
     private static Logger logger = LoggerFactory.getLogger(MongoDBEdge.class.getName());
+    private MongoDBEdgePage page;
     
     public MongoDBEdge(final Document edge, final MongoDBGraph graph) {
         super(edge, graph);
@@ -66,27 +64,42 @@ public class MongoDBEdge extends MongoDBElement implements Edge {
         return this.rawElement.getString(MongoDBConstants.FIELD_LABEL);
     }
 
+    /**
+     * @return the id of the out vertex, without fetching it
+     */
+    public Object getOutVertexId() {
+        return MongoDBGraph.endpointId(this.rawElement.get(MongoDBConstants.FIELD_OUTV));
+    }
+    
+    /**
+     * @return the id of the in vertex, without fetching it
+     */
+    public Object getInVertexId() {
+        return MongoDBGraph.endpointId(this.rawElement.get(MongoDBConstants.FIELD_INV));
+    }
+    
     public MongoDBVertex getOutV() {
-        DBRef outV = (DBRef) this.rawElement.get(MongoDBConstants.FIELD_OUTV);
-        Document vertex;
-        try{
-            vertex = this.graph.getVertexCollection().find(new Document(MongoDBConstants.FIELD_ID, outV.getId())).iterator().next();
-        } catch (NoSuchElementException nsee) {
-            logger.warn("outV of the edge " + getId() + " doesn't exist. Vertex id is " + outV.getId());
-            return null;
+        Object outId = getOutVertexId();
+        MongoDBVertex vertex = this.page == null ? this.graph.loadVertex(outId) : this.page.getVertex(outId);
+        if (vertex == null) {
+            logger.warn("outV of the edge " + getId() + " doesn't exist. Vertex id is " + outId);
         }
-        return new MongoDBVertex(vertex, graph);
+        return vertex;
     }
     
     public MongoDBVertex getinV() {
-        DBRef inV = (DBRef) this.rawElement.get(MongoDBConstants.FIELD_INV);
-        Document vertex;
-        try{
-            vertex = this.graph.getVertexCollection().find(new Document(MongoDBConstants.FIELD_ID, inV.getId())).iterator().next();
-        } catch (NoSuchElementException nsee) {
-            logger.warn("inV of the edge " + getId() + " doesn't exist. Vertex id is " + inV.getId());
-            return null;
+        Object inId = getInVertexId();
+        MongoDBVertex vertex = this.page == null ? this.graph.loadVertex(inId) : this.page.getVertex(inId);
+        if (vertex == null) {
+            logger.warn("inV of the edge " + getId() + " doesn't exist. Vertex id is " + inId);
         }
-        return new MongoDBVertex(vertex, graph);
+        return vertex;
+    }
+    
+    /**
+     * @param page the page resolving the endpoints of this edge
+     */
+    void setPage(final MongoDBEdgePage page) {
+        this.page = page;
     }
 }
@@ -0,0 +1,164 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.DBRef;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.CountOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+
+/**
+ * Converts the {@link DBRef} endpoints of an edge collection into raw ids
+ * ({@link MongoDBEdgeFormat#RAW_ID}) while the graph is in use.
+ * <p>
+ * The graph is switched to {@link MongoDBEdgeFormat#MIGRATING} first, so it
+ * writes raw ids and matches both representations. Then the edges are
+ * rewritten in batches of <code>batchSize</code>, in <code>_id</code> order,
+ * each with one unordered <code>bulkWrite</code>. Once no DBRef is left the
+ * graph is switched to {@link MongoDBEdgeFormat#RAW_ID}. A raw id is only
+ * looked up in the vertex collection of the graph, so a DBRef pointing to
+ * another collection can't be converted: the migration is refused before it
+ * starts if there is any, and stops on one written in the meantime. Other processes
+ * using the same collections read the format when they open the graph, they
+ * have to be reopened after the migration started and after it finished.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBEdgeFormatMigrator {
+    private static final Logger logger = LoggerFactory.getLogger(MongoDBEdgeFormatMigrator.class.getName());
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    
+    private final MongoDBGraph graph;
+    private final int batchSize;
+    
+    public MongoDBEdgeFormatMigrator(final MongoDBGraph graph) {
+        this(graph, DEFAULT_BATCH_SIZE);
+    }
+    
+    public MongoDBEdgeFormatMigrator(final MongoDBGraph graph, final int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive.");
+        }
+        this.graph = graph;
+        this.batchSize = batchSize;
+    }
+    
+    /**
+     * Runs a pass over the edges still stored with DBRefs.
+     * 
+     * @return the number of edges converted
+     * @throws IllegalStateException if an edge refers to a vertex outside the vertex collection
+     */
+    public long migrate() {
+        if (graph.getEdgeFormat() == MongoDBEdgeFormat.RAW_ID) {
+            return 0;
+        }
+        MongoCollection<Document> edges = graph.getEdgeCollection();
+        String vertexCollection = graph.getVertexCollection().getNamespace().getCollectionName();
+        Document foreign = edges.find(foreignEdges(vertexCollection)).first();
+        if (foreign != null) {
+            throw foreignReference(foreign.get(MongoDBConstants.FIELD_MONGO_ID), vertexCollection);
+        }
+        graph.updateEdgeFormat(MongoDBEdgeFormat.MIGRATING);
+        
+        long migrated = 0;
+        Object lastId = null;
+        
+        while (true) {
+            Document query = lastId == null ? pendingEdges()
+                    : new Document("$and", Arrays.asList(pendingEdges(), new Document(MongoDBConstants.FIELD_MONGO_ID, new Document("$gt", lastId))));
+            List<WriteModel<Document>> writes = new ArrayList<WriteModel<Document>>(batchSize);
+            
+            for (Document edge : edges.find(query)
+                    .projection(new Document(MongoDBConstants.FIELD_OUTV, Integer.valueOf(1)).append(MongoDBConstants.FIELD_INV, Integer.valueOf(1)))
+                    .sort(new Document(MongoDBConstants.FIELD_MONGO_ID, Integer.valueOf(1)))
+                    .limit(batchSize)) {
+                lastId = edge.get(MongoDBConstants.FIELD_MONGO_ID);
+                Document set = new Document();
+                convert(edge, MongoDBConstants.FIELD_OUTV, vertexCollection, set);
+                convert(edge, MongoDBConstants.FIELD_INV, vertexCollection, set);
+                // Only applied if the edge is still the one that has been read
+                Document filter = new Document(MongoDBConstants.FIELD_MONGO_ID, lastId)
+                        .append(MongoDBConstants.FIELD_OUTV, edge.get(MongoDBConstants.FIELD_OUTV))
+                        .append(MongoDBConstants.FIELD_INV, edge.get(MongoDBConstants.FIELD_INV));
+                writes.add(new UpdateOneModel<Document>(filter, new Document("$set", set)));
+            }
+            
+            if (writes.isEmpty()) {
+                break;
+            }
+            BulkWriteResult result = edges.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+            migrated += result.getModifiedCount();
+            if (logger.isDebugEnabled()) {
+                logger.debug(migrated + " edges of " + edges.getNamespace() + " are migrated.");
+            }
+        }
+        
+        if (edges.countDocuments(pendingEdges(), new CountOptions().limit(1)) == 0) {
+            graph.updateEdgeFormat(MongoDBEdgeFormat.RAW_ID);
+        } else {
+            logger.warn("Edges of " + edges.getNamespace() + " were written with DBRefs during the migration, it has to be run again.");
+        }
+        return migrated;
+    }
+    
+    /**
+     * @return the filter matching the edges with a DBRef endpoint
+     */
+    private static Document pendingEdges() {
+        return new Document("$or", Arrays.asList(
+                new Document(MongoDBConstants.FIELD_OUTV + ".$ref", new Document("$exists", Boolean.TRUE)),
+                new Document(MongoDBConstants.FIELD_INV + ".$ref", new Document("$exists", Boolean.TRUE))));
+    }
+    
+    /**
+     * @param vertexCollection
+     * @return the filter matching the edges with a DBRef to another collection
+     */
+    private static Document foreignEdges(final String vertexCollection) {
+        return new Document("$or", Arrays.asList(
+                new Document(MongoDBConstants.FIELD_OUTV + ".$ref", new Document("$exists", Boolean.TRUE).append("$ne", vertexCollection)),
+                new Document(MongoDBConstants.FIELD_INV + ".$ref", new Document("$exists", Boolean.TRUE).append("$ne", vertexCollection))));
+    }
+    
+    private static IllegalStateException foreignReference(final Object edgeId, final String vertexCollection) {
+        return new IllegalStateException("Edge " + edgeId + " refers to a vertex outside of " + vertexCollection + ", it can't be migrated to raw ids.");
+    }
+    
+    private static void convert(final Document edge, final String field, final String vertexCollection, final Document set) {
+        DBRef ref = MongoDBGraph.asDBRef(edge.get(field));
+        if (ref != null) {
+            if (!vertexCollection.equals(ref.getCollectionName())) {
+                throw foreignReference(edge.get(MongoDBConstants.FIELD_MONGO_ID), vertexCollection);
+            }
+            set.append(field, ref.getId());
+        }
+    }
+}
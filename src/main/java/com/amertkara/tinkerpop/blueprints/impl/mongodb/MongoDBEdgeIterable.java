@@ -17,38 +17,50 @@
  */
 package com.amertkara.tinkerpop.blueprints.impl.mongodb;
 
-import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 import org.bson.Document;
 
-import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoIterable;
 import com.tinkerpop.blueprints.Edge;
 
 /**
  * @author Mert Kara (https://github.com/amertkara)
  * @since 0.1.0
  */
-public class MongoDBEdgeIterable implements Iterable<Edge> {
-    private FindIterable<Document> iterable;
-    private MongoDBGraph graph;
-    private List<Edge> edges = new ArrayList<Edge>();
+public class MongoDBEdgeIterable extends MongoDBElementIterable<Edge> {
     
-    public MongoDBEdgeIterable(final FindIterable<Document> iterable, final MongoDBGraph graph) {
-        this.iterable = iterable;
-        this.graph = graph;
+    public MongoDBEdgeIterable(final MongoIterable<Document> iterable, final MongoDBGraph graph) {
+        this(iterable, graph, graph.getBatchSize());
     }
     
+    public MongoDBEdgeIterable(final MongoIterable<Document> iterable, final MongoDBGraph graph, final int batchSize) {
+        super(iterable, graph, batchSize);
+    }
+    
+    @Override
+    protected Edge createElement(final Document document) {
+        return new MongoDBEdge(document, graph);
+    }
+    
+    /* (non-Javadoc)
+     * @see com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBElementIterable#readsAhead()
+     */
+    @Override
+    protected boolean readsAhead() {
+        return super.readsAhead() || graph.isEndpointPrefetch();
+    }
+    
+    /* (non-Javadoc)
+     * @see com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBElementIterable#pageFilled(java.util.List)
+     */
     @Override
-    public Iterator<Edge> iterator() {
-        Iterator<Document> it = this.iterable.iterator();
-        
-        while (it.hasNext()) {
-            Document document = (Document) it.next();
-            edges.add((Edge)new MongoDBEdge(document, graph));
+    protected void pageFilled(final List<MongoDBElement> page) {
+        if (graph.isEndpointPrefetch()) {
+            MongoDBEdgePage edgePage = new MongoDBEdgePage(graph);
+            for (MongoDBElement edge : page) {
+                edgePage.add((MongoDBEdge) edge);
+            }
         }
-        
-        return edges.iterator();
     }
 }
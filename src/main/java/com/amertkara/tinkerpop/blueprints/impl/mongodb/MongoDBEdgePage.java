@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A page of edges resolving their endpoints together: the first
+ * {@link MongoDBEdge#getOutV()} or {@link MongoDBEdge#getinV()} on any of
+ * them fetches the vertices at both ends of all of them with one query, the
+ * following ones are served from the page. Built by
+ * {@link MongoDBEdgeIterable} when {@link MongoDBGraph#setEndpointPrefetch(boolean)}
+ * is enabled.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+class MongoDBEdgePage {
+    private final MongoDBGraph graph;
+    private final List<MongoDBEdge> edges = new ArrayList<MongoDBEdge>();
+    private Map<Object, MongoDBVertex> vertices;
+    
+    MongoDBEdgePage(final MongoDBGraph graph) {
+        this.graph = graph;
+    }
+    
+    void add(final MongoDBEdge edge) {
+        this.edges.add(edge);
+        edge.setPage(this);
+    }
+    
+    /**
+     * @param id the id of an endpoint of the page
+     * @return the vertex, null if it doesn't exist
+     */
+    MongoDBVertex getVertex(final Object id) {
+        if (this.vertices == null) {
+            Set<Object> ids = new LinkedHashSet<Object>();
+            for (MongoDBEdge edge : this.edges) {
+                ids.add(edge.getOutVertexId());
+                ids.add(edge.getInVertexId());
+            }
+            this.vertices = this.graph.loadVertices(ids);
+        }
+        return this.vertices.get(MongoDBGraph.normalizeId(id));
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+/**
+ * Endpoints of an edge as read by the traversals, decoded by
+ * {@link MongoDBEdgeRecordCodec} without building a {@link org.bson.Document}:
+ * the label is interned and the endpoints are reduced to the ids of the
+ * vertices, whatever the {@link MongoDBEdgeFormat} they are stored in.
+ * It carries no properties and is not an {@link com.tinkerpop.blueprints.Edge},
+ * see {@link MongoDBGraph#getEdgeRecordCollection()}.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBEdgeRecord {
+    private final Object id;
+    private final String label;
+    private final Object outVertexId;
+    private final Object inVertexId;
+    
+    public MongoDBEdgeRecord(final Object id, final String label, final Object outVertexId, final Object inVertexId) {
+        this.id = id;
+        this.label = label;
+        this.outVertexId = outVertexId;
+        this.inVertexId = inVertexId;
+    }
+    
+    /**
+     * @return the id, null if it wasn't fetched
+     */
+    public Object getId() {
+        return this.id;
+    }
+    
+    /**
+     * @return the label, null if it wasn't fetched
+     */
+    public String getLabel() {
+        return this.label;
+    }
+    
+    public Object getOutVertexId() {
+        return this.outVertexId;
+    }
+    
+    public Object getInVertexId() {
+        return this.inVertexId;
+    }
+    
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + id + "]";
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.bson.BsonBinarySubType;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.BsonTypeClassMap;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+
+/**
+ * Edge endpoint decoder for the traversals: reads edge documents straight
+ * from the BSON stream into {@link MongoDBEdgeRecord}s, for the paths that
+ * only follow edges, e.g. {@link MongoDBFrontierExpander} and
+ * {@link MongoDBVertexQuery#vertexIds()}. Only {@link MongoDBConstants#FIELD_ID},
+ * {@link MongoDBConstants#FIELD_LABEL} and the ids of the endpoints are read,
+ * whether the endpoints are stored as DBRefs or raw ids. Everything else,
+ * the properties included, is skipped without being decoded. Ids are decoded
+ * with the given registry.
+ * <p>
+ * It is not used to read elements: {@link MongoDBVertex} and
+ * {@link MongoDBEdge} are still built on {@link org.bson.Document}s, which
+ * {@link MongoDBLazyDocumentCodec} can decode on demand instead.
+ * Records are read only, encoding is not supported.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBEdgeRecordCodec implements Codec<MongoDBEdgeRecord> {
+    private static final String DBREF_ID = "$id";
+    
+    private final CodecRegistry registry;
+    private final BsonTypeClassMap bsonTypeClassMap = new BsonTypeClassMap();
+    
+    /**
+     * @param registry decodes the ids
+     */
+    public MongoDBEdgeRecordCodec(final CodecRegistry registry) {
+        this.registry = registry;
+    }
+    
+    /* (non-Javadoc)
+     * @see org.bson.codecs.Encoder#getEncoderClass()
+     */
+    @Override
+    public Class<MongoDBEdgeRecord> getEncoderClass() {
+        return MongoDBEdgeRecord.class;
+    }
+    
+    /* (non-Javadoc)
+     * @see org.bson.codecs.Decoder#decode(org.bson.BsonReader, org.bson.codecs.DecoderContext)
+     */
+    @Override
+    public MongoDBEdgeRecord decode(final BsonReader reader, final DecoderContext decoderContext) {
+        Object id = null;
+        String label = null;
+        Object outVertexId = null;
+        Object inVertexId = null;
+        
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if (MongoDBConstants.FIELD_ID.equals(name)) {
+                id = readValue(reader, decoderContext);
+            } else if (MongoDBConstants.FIELD_LABEL.equals(name) && reader.getCurrentBsonType() == BsonType.STRING) {
+                // Few distinct labels are shared by many edges
+                label = reader.readString().intern();
+            } else if (MongoDBConstants.FIELD_OUTV.equals(name)) {
+                outVertexId = readEndpointId(reader, decoderContext);
+            } else if (MongoDBConstants.FIELD_INV.equals(name)) {
+                inVertexId = readEndpointId(reader, decoderContext);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        
+        return new MongoDBEdgeRecord(id, label, outVertexId, inVertexId);
+    }
+    
+    /* (non-Javadoc)
+     * @see org.bson.codecs.Encoder#encode(org.bson.BsonWriter, java.lang.Object, org.bson.codecs.EncoderContext)
+     */
+    @Override
+    public void encode(final BsonWriter writer, final MongoDBEdgeRecord value, final EncoderContext encoderContext) {
+        throw new UnsupportedOperationException("Edge records are read only.");
+    }
+    
+    /**
+     * Reads the id out of a DBRef sub-document, or the raw id.
+     */
+    private Object readEndpointId(final BsonReader reader, final DecoderContext decoderContext) {
+        if (reader.getCurrentBsonType() != BsonType.DOCUMENT) {
+            return readValue(reader, decoderContext);
+        }
+        Object id = null;
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if (DBREF_ID.equals(reader.readName())) {
+                id = readValue(reader, decoderContext);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return id;
+    }
+    
+    /**
+     * Decodes any value the way {@link org.bson.codecs.DocumentCodec} does,
+     * arrays as lists and sub-documents as documents.
+     */
+    private Object readValue(final BsonReader reader, final DecoderContext decoderContext) {
+        BsonType type = reader.getCurrentBsonType();
+        if (type == BsonType.NULL) {
+            reader.readNull();
+            return null;
+        }
+        if (type == BsonType.ARRAY) {
+            List<Object> list = new ArrayList<Object>();
+            reader.readStartArray();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                list.add(readValue(reader, decoderContext));
+            }
+            reader.readEndArray();
+            return list;
+        }
+        if (type == BsonType.BINARY && BsonBinarySubType.isUuid(reader.peekBinarySubType()) && reader.peekBinarySize() == 16) {
+            return registry.get(UUID.class).decode(reader, decoderContext);
+        }
+        return registry.get(bsonTypeClassMap.get(type)).decode(reader, decoderContext);
+    }
+}
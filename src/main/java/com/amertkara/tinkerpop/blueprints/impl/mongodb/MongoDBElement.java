@@ -17,14 +17,13 @@
  */
 package com.amertkara.tinkerpop.blueprints.impl.mongodb;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 import org.bson.Document;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import com.mongodb.client.MongoCollection;
-import com.mongodb.client.result.UpdateResult;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.util.ElementHelper;
 
@@ -33,10 +32,11 @@ import com.tinkerpop.blueprints.util.ElementHelper;
  * @since 0.1.0
  */
 public abstract class MongoDBElement implements Element {
-    private static Logger logger = LoggerFactory.getLogger(MongoDBElement.class.getName());
     protected final MongoDBGraph graph;
     protected Document rawElement;
     protected Object id;
+    private boolean propertiesLoaded = true;
+    private List<? extends MongoDBElement> page;
     
     public abstract MongoCollection<Document> getMongoCollection();
     
@@ -51,7 +51,7 @@ public abstract class MongoDBElement implements Element {
     @SuppressWarnings("unchecked")
     @Override
     public <T> T getProperty(final String key) {
-        return (T) ((Document) this.rawElement.get(MongoDBConstants.FIELD_PROPERTIES)).get(key);
+        return (T) getProperties().get(key);
     }
 
     /* (non-Javadoc)
@@ -59,7 +59,7 @@ public abstract class MongoDBElement implements Element {
      */
     @Override
     public Set<String> getPropertyKeys() {
-        return ((Document) this.rawElement.get(MongoDBConstants.FIELD_PROPERTIES)).keySet();
+        return getProperties().keySet();
     }
 
     /* (non-Javadoc)
@@ -68,12 +68,9 @@ public abstract class MongoDBElement implements Element {
     @Override
     public void setProperty(final String key, final Object value) {
         ElementHelper.validateProperty(this, key, value);
-        UpdateResult result = getMongoCollection().updateOne(this.rawElement, new Document("$set", new Document(MongoDBConstants.FIELD_PROPERTIES, new Document(key, value))));
-        if (result.getMatchedCount() == result.getModifiedCount()) {
-            logger.info("Property of element " + this.rawElement.get(MongoDBConstants.FIELD_ID) + " is set.");
-        }
-        // Refresh the rawElement
-        this.reload();
+        // Only the given key is written, the other properties are left as they are
+        this.graph.writeProperty(this, key, value);
+        applyProperty(key, value);
     }
 
     /* (non-Javadoc)
@@ -81,16 +78,12 @@ public abstract class MongoDBElement implements Element {
      */
     @Override
     public <T> T removeProperty(final String key) {
-        if (getProperty(key) == null) {
+        T removedProperty = getProperty(key);
+        if (removedProperty == null) {
             return null;
         } else {
-            UpdateResult result = getMongoCollection().updateOne(this.rawElement, new Document("$unset", new Document(MongoDBConstants.FIELD_PROPERTIES + "." + key, "")));
-            if (result.getMatchedCount() == result.getModifiedCount()) {
-                logger.info("Property of element " + this.rawElement.get(MongoDBConstants.FIELD_ID) + " is unset.");
-            }
-            T removedProperty = this.getProperty(key);
-            // Refresh the rawElement
-            reload();
+            this.graph.writePropertyRemoval(this, key);
+            applyPropertyRemoval(key);
             return removedProperty;
         }
     }
@@ -100,7 +93,8 @@ public abstract class MongoDBElement implements Element {
      */
     @Override
     public void remove() {
-        getMongoCollection().deleteOne(new Document("id", this.rawElement.get(MongoDBConstants.FIELD_ID)));
+        this.graph.writeRemoval(this);
+        this.graph.cacheRemoved(this);
     }
 
     /* (non-Javadoc)
@@ -111,6 +105,25 @@ public abstract class MongoDBElement implements Element {
         return this.rawElement.get(MongoDBConstants.FIELD_ID);
     }
     
+    /**
+     * @return true if the id is an integer, see {@link #getLongId()}
+     */
+    public boolean hasLongId() {
+        return MongoDBGraph.isIntegralId(getId());
+    }
+    
+    /**
+     * @return the id as a primitive long, whether it is stored as int32 or int64
+     * @throws IllegalStateException if the id is not an integer
+     */
+    public long getLongId() {
+        Object id = getId();
+        if (!MongoDBGraph.isIntegralId(id)) {
+            throw new IllegalStateException("The id " + id + " is not an integer.");
+        }
+        return ((Number) id).longValue();
+    }
+    
     /* (non-Javadoc)
      * @see java.lang.Object#hashCode()
      */
@@ -127,9 +140,92 @@ public abstract class MongoDBElement implements Element {
         return ElementHelper.areEqual(this, obj);
     }
 
+    /**
+     * @return the properties sub-document, empty if the element has none or
+     *         they were not loaded
+     */
+    protected Document getProperties() {
+        loadDeferredProperties();
+        Document properties = (Document) this.rawElement.get(MongoDBConstants.FIELD_PROPERTIES);
+        return properties == null ? new Document() : properties;
+    }
+    
+    /**
+     * Applies a stored property to the rawElement instead of reloading it.
+     * 
+     * @param key
+     * @param value
+     */
+    void applyProperty(final String key, final Object value) {
+        loadDeferredProperties();
+        Document properties = (Document) this.rawElement.get(MongoDBConstants.FIELD_PROPERTIES);
+        if (properties == null) {
+            properties = new Document();
+            this.rawElement.put(MongoDBConstants.FIELD_PROPERTIES, properties);
+        }
+        properties.put(key, value);
+        this.graph.cacheWritten(this);
+    }
+    
+    /**
+     * Applies a removed property to the rawElement instead of reloading it.
+     * 
+     * @param key
+     */
+    void applyPropertyRemoval(final String key) {
+        getProperties().remove(key);
+        this.graph.cacheWritten(this);
+    }
+    
+    /**
+     * @return the filter matching this element by {@link MongoDBConstants#FIELD_ID}
+     */
+    protected Document idFilter() {
+        return new Document(MongoDBConstants.FIELD_ID, getId());
+    }
+    
     public void reload() {
         this.rawElement = getMongoCollection().find(new Document("id", this.rawElement.get(MongoDBConstants.FIELD_ID))).iterator().next();
+        this.propertiesLoaded = true;
+        this.page = null;
+    }
+    
+    /**
+     * @return false if the element was fetched without its properties and
+     *         they haven't been accessed yet
+     */
+    public boolean isPropertiesLoaded() {
+        return this.propertiesLoaded;
+    }
+    
+    /**
+     * Marks the properties as not fetched. They are loaded on first access,
+     * together with those of the other elements of the page.
+     * 
+     * @param page the elements loaded at once, null for this one only
+     */
+    void deferProperties(final List<? extends MongoDBElement> page) {
+        this.propertiesLoaded = false;
+        this.page = page;
+    }
+    
+    /**
+     * Sets the properties fetched by {@link MongoDBGraph#loadProperties(java.util.Collection)}.
+     * 
+     * @param properties null if the element has none
+     */
+    void propertiesLoaded(final Document properties) {
+        if (properties != null) {
+            this.rawElement.put(MongoDBConstants.FIELD_PROPERTIES, properties);
+        }
+        this.propertiesLoaded = true;
+        this.page = null;
     }
     
+    private void loadDeferredProperties() {
+        if (!this.propertiesLoaded) {
+            this.graph.loadProperties(this.page == null ? Collections.singletonList(this) : this.page);
+        }
+    }
     
 }
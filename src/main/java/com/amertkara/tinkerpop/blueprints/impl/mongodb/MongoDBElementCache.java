@@ -0,0 +1,134 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded least recently used cache of elements, keyed by id. The graph keeps
+ * one for vertices and one for edges when caching is enabled with
+ * {@link MongoDBGraph#enableElementCache(int)}. Elements written through
+ * {@link MongoDBElement} evict any other cached copy of themselves, removed
+ * ones are evicted.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBElementCache<T extends MongoDBElement> {
+    private final int maxSize;
+    private final Map<Object, T> elements;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    
+    @SuppressWarnings("serial")
+    public MongoDBElementCache(final int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive.");
+        }
+        this.maxSize = maxSize;
+        // Access ordered, so the eldest entry is the least recently used one
+        this.elements = new LinkedHashMap<Object, T>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Object, T> eldest) {
+                return size() > MongoDBElementCache.this.maxSize;
+            }
+        };
+    }
+    
+    /**
+     * @param id
+     * @return the cached element, null if there is none
+     */
+    public T get(final Object id) {
+        T element;
+        synchronized (elements) {
+            element = elements.get(MongoDBGraph.normalizeId(id));
+        }
+        if (element == null) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        return element;
+    }
+    
+    public void put(final T element) {
+        synchronized (elements) {
+            elements.put(MongoDBGraph.normalizeId(element.getId()), element);
+        }
+    }
+    
+    /**
+     * Called once an element has been written. The cached entry is kept if
+     * it is that very instance, which holds the change; any other copy is
+     * evicted as it is now stale. An element which isn't cached is not added,
+     * it may be partial, e.g. projected by a query.
+     * 
+     * @param element
+     */
+    public void evictOtherCopy(final T element) {
+        Object key = MongoDBGraph.normalizeId(element.getId());
+        synchronized (elements) {
+            T cached = elements.get(key);
+            if (cached != null && cached != element) {
+                elements.remove(key);
+            }
+        }
+    }
+    
+    public void invalidate(final Object id) {
+        synchronized (elements) {
+            elements.remove(MongoDBGraph.normalizeId(id));
+        }
+    }
+    
+    public void clear() {
+        synchronized (elements) {
+            elements.clear();
+        }
+    }
+    
+    public int size() {
+        synchronized (elements) {
+            return elements.size();
+        }
+    }
+    
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+    
+    public long getHitCount() {
+        return hitCount.get();
+    }
+    
+    public long getMissCount() {
+        return missCount.get();
+    }
+    
+    /**
+     * @return the ratio of the lookups served by the cache, 0 if there was none
+     */
+    public double getHitRate() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bson.Document;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoIterable;
+import com.tinkerpop.blueprints.CloseableIterable;
+import com.tinkerpop.blueprints.Element;
+
+/**
+ * Lazy {@link CloseableIterable} over a {@link MongoIterable}, e.g. the result
+ * of a find or an aggregation. Every call to {@link #iterator()} opens a new
+ * {@link MongoCursor} and wraps the documents into elements one by one, so
+ * nothing is kept in memory between iterations.
+ * A cursor is released as soon as it is exhausted; {@link #close()} releases
+ * the ones that were abandoned half way.
+ * In lazy mode, see {@link MongoDBGraph#setLazyProperties(boolean)}, finds
+ * skip the properties, and the elements of each batch load theirs together.
+ * The elements are then built a page at a time, so that a page is complete
+ * before its first element is handed out.
+ *
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public abstract class MongoDBElementIterable<T extends Element> implements CloseableIterable<T> {
+    protected final MongoIterable<Document> iterable;
+    protected final MongoDBGraph graph;
+    private final int pageSize;
+    private final Set<MongoCursor<Document>> openCursors = ConcurrentHashMap.newKeySet();
+
+    @SuppressWarnings("unchecked")
+    public MongoDBElementIterable(final MongoIterable<Document> iterable, final MongoDBGraph graph, final int batchSize) {
+        this.graph = graph;
+        this.iterable = batchSize > 0 ? iterable.batchSize(batchSize) : iterable;
+        this.pageSize = batchSize > 0 ? batchSize : MongoDBConstants.DEFAULT_LAZY_PAGE_SIZE;
+        if (graph.isLazyProperties() && iterable instanceof FindIterable) {
+            ((FindIterable<Document>) iterable).projection(graph.lazyProjection());
+        }
+    }
+
+    /**
+     * Wraps a raw document into an element.
+     *
+     * @param document
+     * @return the element
+     */
+    protected abstract T createElement(final Document document);
+
+    /**
+     * @return true if the elements are built a page at a time
+     */
+    protected boolean readsAhead() {
+        return this.graph.isLazyProperties();
+    }
+    
+    /**
+     * Called once the elements of a page have been built.
+     * 
+     * @param page
+     */
+    protected void pageFilled(final List<MongoDBElement> page) {
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        final MongoCursor<Document> cursor = this.iterable.iterator();
+        openCursors.add(cursor);
+
+        return new Iterator<T>() {
+            private boolean closed = false;
+            private final Deque<T> buffered = new ArrayDeque<T>();
+
+            @Override
+            public boolean hasNext() {
+                if (!buffered.isEmpty()) {
+                    return true;
+                }
+                if (closed) {
+                    return false;
+                }
+                if (cursor.hasNext()) {
+                    return true;
+                }
+                release();
+                return false;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (buffered.isEmpty()) {
+                    fill();
+                }
+                return buffered.poll();
+            }
+
+            /**
+             * Builds the next page, or the next element only if pages aren't
+             * used. Stops at the page size so no extra batch is requested.
+             */
+            private void fill() {
+                int size = readsAhead() ? pageSize : 1;
+                List<MongoDBElement> page = new ArrayList<MongoDBElement>(size);
+                while (page.size() < size && cursor.hasNext()) {
+                    Document document = cursor.next();
+                    T element = createElement(document);
+                    page.add(graph.deferProperties((MongoDBElement) element, document, page));
+                    buffered.add(element);
+                }
+                pageFilled(page);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+            private void release() {
+                closed = true;
+                openCursors.remove(cursor);
+                cursor.close();
+            }
+        };
+    }
+
+    /* (non-Javadoc)
+     * @see com.tinkerpop.blueprints.CloseableIterable#close()
+     */
+    @Override
+    public void close() {
+        for (MongoCursor<Document> cursor : openCursors) {
+            openCursors.remove(cursor);
+            cursor.close();
+        }
+    }
+}
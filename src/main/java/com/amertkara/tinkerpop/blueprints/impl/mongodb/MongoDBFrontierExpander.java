@@ -0,0 +1,282 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.bson.Document;
+
+import com.tinkerpop.blueprints.Direction;
+
+/**
+ * Expands a whole traversal frontier at once instead of one
+ * {@link MongoDBVertex#getVertices(Direction, String...)} call per vertex. The
+ * frontier is split into batches of <code>batchSize</code> ids, each batch is
+ * expanded with a single <code>$in</code> query on the edge collection, and
+ * the batches run in parallel on a bounded executor, so a hop costs about one
+ * round trip whatever the size of the frontier.
+ * <p>
+ * Vertices reached by several batches are reported once: the workers record
+ * the visited ids in a concurrent set and only keep the ones they see first.
+ * Directions follow Blueprints, e.g. OUT reaches the in vertices of the edges
+ * the frontier vertices are the out vertex of; no label means any label.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBFrontierExpander {
+    public static final int DEFAULT_CONCURRENCY = 4;
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    
+    private final MongoDBGraph graph;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final int batchSize;
+    
+    public MongoDBFrontierExpander(final MongoDBGraph graph) {
+        this(graph, DEFAULT_CONCURRENCY, DEFAULT_BATCH_SIZE);
+    }
+    
+    /**
+     * @param graph
+     * @param concurrency maximum number of batch queries in flight
+     * @param batchSize number of frontier ids per query
+     */
+    public MongoDBFrontierExpander(final MongoDBGraph graph, final int concurrency, final int batchSize) {
+        this(graph, Executors.newFixedThreadPool(checkPositive(concurrency, "concurrency"), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+            
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "mongodb-graph-expander-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        }), batchSize, true);
+    }
+    
+    /**
+     * Runs the batch queries one after the other in the calling thread.
+     * 
+     * @param graph
+     * @param batchSize number of frontier ids per query
+     */
+    public MongoDBFrontierExpander(final MongoDBGraph graph, final int batchSize) {
+        this(graph, null, batchSize, false);
+    }
+    
+    /**
+     * Runs the batch queries on a shared executor, its size caps the concurrency.
+     * 
+     * @param graph
+     * @param executor
+     * @param batchSize number of frontier ids per query
+     */
+    public MongoDBFrontierExpander(final MongoDBGraph graph, final ExecutorService executor, final int batchSize) {
+        this(graph, executor, batchSize, false);
+    }
+    
+    private MongoDBFrontierExpander(final MongoDBGraph graph, final ExecutorService executor, final int batchSize, final boolean ownsExecutor) {
+        this.graph = graph;
+        this.executor = executor;
+        this.batchSize = checkPositive(batchSize, "batchSize");
+        this.ownsExecutor = ownsExecutor;
+    }
+    
+    /**
+     * Collects the ids of the vertices within <code>hops</code> hops of a
+     * vertex, a shortcut for a {@link MongoDBTraversal} run with this expander.
+     * 
+     * @param vertexId
+     * @param hops
+     * @param direction
+     * @param labels
+     * @return the ids of the reached vertices, the start vertex excluded
+     */
+    public Set<Object> neighborhood(final Object vertexId, final int hops, final Direction direction, final String... labels) {
+        return new LinkedHashSet<Object>(new MongoDBTraversal(graph, this)
+                .direction(direction).labels(labels).maxDepth(hops)
+                .vertexIds(vertexId));
+    }
+    
+    /**
+     * Expands a frontier by one hop.
+     * 
+     * @param frontier
+     * @param visited ids already reached, see {@link MongoDBGraph#normalizeId(Object)};
+     *                must be safe for concurrent use, the new ids are added to it
+     * @param direction
+     * @param labels
+     * @return the ids of the vertices reached for the first time
+     */
+    public List<Object> expand(final Collection<?> frontier, final Set<Object> visited, final Direction direction, final String... labels) {
+        return expand(frontier, new Predicate<Object>() {
+            @Override
+            public boolean test(Object id) {
+                return visited.add(MongoDBGraph.normalizeId(id));
+            }
+        }, direction, labels);
+    }
+    
+    /**
+     * Expands a frontier by one hop.
+     * 
+     * @param frontier
+     * @param firstVisit called from the worker threads with the id of every
+     *                   reached vertex as stored, true if it is reached for
+     *                   the first time; integral ids may come as Integer or
+     *                   Long, {@link MongoDBIdSet} treats them alike
+     * @param direction
+     * @param labels
+     * @return the ids of the vertices reached for the first time
+     */
+    public List<Object> expand(final Collection<?> frontier, final Predicate<Object> firstVisit, final Direction direction, final String... labels) {
+        List<Object> ids = new ArrayList<Object>(frontier);
+        List<Object> reached = new ArrayList<Object>();
+        if (ids.size() <= batchSize || executor == null) {
+            // A single batch is not worth a hand off
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                reached.addAll(expandBatch(ids.subList(from, Math.min(from + batchSize, ids.size())), firstVisit, direction, labels));
+            }
+            return reached;
+        }
+        
+        List<Future<List<Object>>> batches = new ArrayList<Future<List<Object>>>();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            final List<Object> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            batches.add(executor.submit(new Callable<List<Object>>() {
+                @Override
+                public List<Object> call() {
+                    return expandBatch(batch, firstVisit, direction, labels);
+                }
+            }));
+        }
+        
+        try {
+            for (Future<List<Object>> batch : batches) {
+                reached.addAll(batch.get());
+            }
+        } catch (InterruptedException ie) {
+            cancel(batches);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while expanding the frontier.", ie);
+        } catch (ExecutionException ee) {
+            cancel(batches);
+            if (ee.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ee.getCause();
+            }
+            throw new IllegalStateException(ee.getCause());
+        }
+        return reached;
+    }
+    
+    /**
+     * Stops the executor unless it was given by the caller.
+     */
+    public void shutdown() {
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+    
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+    
+    /**
+     * One query for a batch of the frontier.
+     */
+    List<Object> expandBatch(final List<Object> batch, final Predicate<Object> firstVisit, final Direction direction, final String... labels) {
+        Document query;
+        if (direction.equals(Direction.OUT)) {
+            query = new Document(MongoDBConstants.FIELD_OUTV, graph.endpointInFilter(batch));
+        } else if (direction.equals(Direction.IN)) {
+            query = new Document(MongoDBConstants.FIELD_INV, graph.endpointInFilter(batch));
+        } else {
+            query = new Document("$or", Arrays.asList(
+                    new Document(MongoDBConstants.FIELD_OUTV, graph.endpointInFilter(batch)),
+                    new Document(MongoDBConstants.FIELD_INV, graph.endpointInFilter(batch))));
+        }
+        if (labels.length > 0) {
+            query.append(MongoDBConstants.FIELD_LABEL, new Document("$in", Arrays.asList(labels)));
+        }
+        
+        MongoDBIdSet sources = null;
+        if (direction.equals(Direction.BOTH)) {
+            sources = new MongoDBIdSet(batch.size());
+            for (Object id : batch) {
+                sources.add(id);
+            }
+        }
+        
+        List<Object> reached = new ArrayList<Object>();
+        // Decoded straight into the endpoint ids, see MongoDBEdgeRecordCodec
+        for (MongoDBEdgeRecord edge : graph.getEdgeRecordCollection().find(query)
+                .projection(new Document(MongoDBConstants.FIELD_MONGO_ID, Integer.valueOf(0))
+                        .append(MongoDBConstants.FIELD_OUTV, Integer.valueOf(1))
+                        .append(MongoDBConstants.FIELD_INV, Integer.valueOf(1)))) {
+            Object outId = edge.getOutVertexId();
+            Object inId = edge.getInVertexId();
+            if (direction.equals(Direction.OUT)) {
+                visit(inId, firstVisit, reached);
+            } else if (direction.equals(Direction.IN)) {
+                visit(outId, firstVisit, reached);
+            } else {
+                if (sources.contains(outId)) {
+                    visit(inId, firstVisit, reached);
+                }
+                if (sources.contains(inId)) {
+                    visit(outId, firstVisit, reached);
+                }
+            }
+        }
+        return reached;
+    }
+    
+    private static void visit(final Object id, final Predicate<Object> firstVisit, final List<Object> reached) {
+        if (firstVisit.test(id)) {
+            reached.add(id);
+        }
+    }
+    
+    private static void cancel(final List<Future<List<Object>>> batches) {
+        for (Future<List<Object>> batch : batches) {
+            batch.cancel(true);
+        }
+    }
+    
+    private static int checkPositive(final int value, final String name) {
+        if (value < 1) {
+            throw new IllegalArgumentException(name + " must be positive.");
+        }
+        return value;
+    }
+}
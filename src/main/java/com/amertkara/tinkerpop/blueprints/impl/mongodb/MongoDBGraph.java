@@ -17,21 +17,36 @@
  */
 package com.amertkara.tinkerpop.blueprints.impl.mongodb;
 
-import java.util.NoSuchElementException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 
 import org.bson.Document;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.mongodb.DBRef;
 import com.mongodb.MongoClient;
 import com.mongodb.MongoClientOptions;
+import com.mongodb.MongoCommandException;
 import com.mongodb.MongoWriteConcernException;
 import com.mongodb.MongoWriteException;
+import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.CountOptions;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.result.UpdateResult;
+import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Features;
@@ -49,11 +64,26 @@ import com.tinkerpop.blueprints.util.ExceptionFactory;
 public class MongoDBGraph implements MetaGraph<MongoDatabase>, KeyIndexableGraph {
     private static final Logger logger = LoggerFactory.getLogger(MongoDBGraph.class.getName());
     private static final Features FEATURES = new Features();
+    private static final String DBREF_COLLECTION = "$ref";
+    private static final String DBREF_ID = "$id";
 
     private MongoClient mongoClient;
+    private boolean ownsClient;
     private MongoDatabase rawGraph;
     private String edgeCollection;
     private String vertexCollection;
+    private int batchSize = MongoDBConstants.DEFAULT_BATCH_SIZE;
+    private MongoDBIdAllocator idAllocator;
+    private List<Integer> serverVersion;
+    private MongoDBElementCache<MongoDBVertex> vertexCache;
+    private MongoDBElementCache<MongoDBEdge> edgeCache;
+    private volatile MongoDBWriteBuffer writeBuffer;
+    private MongoDBAdjacencyLists adjacencyLists;
+    private MongoDBEdgeFormat edgeFormat;
+    private boolean lazyProperties;
+    private boolean endpointPrefetch;
+    private CodecRegistry recordCodecRegistry;
+    private CodecRegistry lazyDecodingRegistry;
     
     static {
         // TODO: put the features
@@ -72,24 +102,79 @@ public class MongoDBGraph implements MetaGraph<MongoDatabase>, KeyIndexableGraph
             final String databaseName, final String edgeCollection,
             final String vertexCollection) {
         
-        if (edgeCollection == null || edgeCollection.isEmpty() ||
-                vertexCollection == null || vertexCollection.isEmpty() ||
-                databaseName == null || databaseName.isEmpty()) {
-            throw new IllegalStateException("edgeCollection, vertexCollection and databaseName cannot be empty.");
-        }
+        validateNames(databaseName, edgeCollection, vertexCollection);
         
         if (host != null && !host.isEmpty()) {
             mongoClient = new MongoClient(host, port);
         } else {
            mongoClient = new MongoClient();
         }  
-
+        this.ownsClient = true;
+        
+        initialize(databaseName, edgeCollection, vertexCollection);
+    }
+    
+    /**
+     * Opens a graph with a client shared with other graphs, e.g. the graphs of
+     * several tenants. {@link #shutdown()} leaves the client open.
+     * 
+     * @param mongoClient
+     * @param databaseName
+     * @param edgeCollection
+     * @param vertexCollection
+     */
+    public MongoDBGraph(final MongoClient mongoClient, final String databaseName,
+            final String edgeCollection, final String vertexCollection) {
+        
+        validateNames(databaseName, edgeCollection, vertexCollection);
+        if (mongoClient == null) {
+            throw new IllegalArgumentException("mongoClient cannot be null.");
+        }
+        this.mongoClient = mongoClient;
+        this.ownsClient = false;
+        
+        initialize(databaseName, edgeCollection, vertexCollection);
+    }
+    
+    /**
+     * Opens the graph of a tenant. Its vertices and edges are kept in the
+     * <code>&lt;tenant&gt;.vertexCollection</code> and
+     * <code>&lt;tenant&gt;.edgeCollection</code> collections, so each tenant
+     * has its own, smaller indexes.
+     * 
+     * @param mongoClient the client shared by the tenants
+     * @param databaseName
+     * @param tenant
+     * @return the graph of the tenant
+     */
+    public static MongoDBGraph forTenant(final MongoClient mongoClient, final String databaseName, final String tenant) {
+        if (tenant == null || tenant.isEmpty()) {
+            throw new IllegalArgumentException("tenant cannot be empty.");
+        }
+        return new MongoDBGraph(mongoClient, databaseName,
+                tenant + MongoDBConstants.TENANT_SEPARATOR + MongoDBConstants.DEFAULT_EDGE_COLLECTION,
+                tenant + MongoDBConstants.TENANT_SEPARATOR + MongoDBConstants.DEFAULT_VERTEX_COLLECTION);
+    }
+    
+    private static void validateNames(final String databaseName, final String edgeCollection, final String vertexCollection) {
+        if (edgeCollection == null || edgeCollection.isEmpty() ||
+                vertexCollection == null || vertexCollection.isEmpty() ||
+                databaseName == null || databaseName.isEmpty()) {
+            throw new IllegalStateException("edgeCollection, vertexCollection and databaseName cannot be empty.");
+        }
+    }
+    
+    private void initialize(final String databaseName, final String edgeCollection, final String vertexCollection) {
         this.edgeCollection = edgeCollection;
         this.vertexCollection = vertexCollection;
         this.rawGraph = mongoClient.getDatabase(databaseName);
+        CodecRegistry registry = this.rawGraph.getCodecRegistry();
+        this.recordCodecRegistry = CodecRegistries.fromRegistries(CodecRegistries.fromCodecs(new MongoDBEdgeRecordCodec(registry)), registry);
+        
+        this.idAllocator = new MongoDBCounterIdAllocator(this.rawGraph);
+        this.edgeFormat = loadEdgeFormat();
         
-        this.rawGraph.getCollection(edgeCollection).createIndex(new Document(MongoDBConstants.FIELD_ID, new Integer(1)).append("unique", new Boolean(true)));
-        this.rawGraph.getCollection(vertexCollection).createIndex(new Document(MongoDBConstants.FIELD_ID, new Integer(1)).append("unique", new Boolean(true)));
+        createIndexes();
     }
 
     /*
@@ -110,29 +195,16 @@ public class MongoDBGraph implements MetaGraph<MongoDatabase>, KeyIndexableGraph
     @Override
     public Vertex addVertex(Object id) throws MongoWriteException, MongoWriteConcernException {
         if (id == null) {
-            id = getCollectionNextID(vertexCollection);
+            id = idAllocator.nextId(vertexCollection);
         }
         
-        MongoDBVertexIterable vertexIt;
-        MongoDBVertex vertex;
-        
-        // Insert the new edge
-        this.rawGraph.getCollection(vertexCollection).insertOne(
-                new Document(MongoDBConstants.FIELD_ID, id)
-        );
+        Document vertex = new Document(MongoDBConstants.FIELD_ID, id);
         
-        // TODO: Performance can be improved by getting rid of the second call.
-        // Fetch the newly created edge
-        vertexIt = new MongoDBVertexIterable(this.rawGraph.getCollection(vertexCollection).find(new Document(MongoDBConstants.FIELD_ID, id)), this);
+        // Insert the new vertex, the driver fills in the generated _id so
+        // the document is exactly what has been stored.
+        writeInsert(getVertexCollection(), vertex);
         
-        try {
-            vertex = (MongoDBVertex) vertexIt.iterator().next();
-        } catch (NoSuchElementException nsee) {
-            logger.warn("Newly created vertex could not be fetched. The error message: " + nsee.getMessage());
-            vertex = null;
-        }
-            
-        return vertex;
+        return new MongoDBVertex(vertex, this);
     }
 
     /*
@@ -146,29 +218,72 @@ public class MongoDBGraph implements MetaGraph<MongoDatabase>, KeyIndexableGraph
             throw ExceptionFactory.vertexIdCanNotBeNull();
         }
         
-        MongoDBVertex vertex;
-        MongoDBVertexIterable vertexIt;
+        id = coerceVertexId(id);
         
-        try {
-            if (id instanceof Long) {
-                id = (Long) id;
-            } else if (id instanceof Number) {
-                id = new Long(((Number)id).longValue());
+        MongoDBVertex vertex = loadVertex(id);
+        if (vertex == null) {
+            logger.warn("Vertex " + id + " could not be fetched.");
+        }
+        return vertex;
+    }
+    
+    /**
+     * Fetches a vertex by its stored id, from the cache if it is enabled.
+     * 
+     * @param id
+     * @return the vertex, null if it doesn't exist
+     */
+    MongoDBVertex loadVertex(final Object id) {
+        MongoDBVertex vertex = vertexCache == null ? null : vertexCache.get(id);
+        if (vertex != null) {
+            return vertex;
+        }
+        
+        Document document = findElements(getVertexCollection(), new Document(MongoDBConstants.FIELD_ID, id)).first();
+        if (document == null) {
+            return null;
+        }
+        
+        vertex = deferProperties(new MongoDBVertex(document, this), document, null);
+        if (vertexCache != null) {
+            vertexCache.put(vertex);
+        }
+        return vertex;
+    }
+
+    /**
+     * Fetches vertices by their stored ids, the cached ones from the cache
+     * if it is enabled and the others with a single query.
+     * 
+     * @param ids
+     * @return the existing vertices by normalized id
+     */
+    Map<Object, MongoDBVertex> loadVertices(final Collection<?> ids) {
+        Map<Object, MongoDBVertex> vertices = new HashMap<Object, MongoDBVertex>();
+        List<Object> missing = new ArrayList<Object>();
+        for (Object id : ids) {
+            MongoDBVertex vertex = vertexCache == null ? null : vertexCache.get(id);
+            if (vertex != null) {
+                vertices.put(normalizeId(id), vertex);
             } else {
-                id = new Long(Double.valueOf(id.toString()).longValue());
+                missing.add(id);
             }
-            
-            vertexIt = new MongoDBVertexIterable(this.rawGraph.getCollection(vertexCollection).find(new Document(MongoDBConstants.FIELD_ID, id)), this);
-            vertex = (MongoDBVertex) vertexIt.iterator().next();
-        } catch (NoSuchElementException nsee) {
-            logger.warn("Vertex could not be fetched. The error message: " + nsee.getMessage());
-            vertex = null;
-        } catch (NumberFormatException nfe) {
-            logger.warn("Given id could not be converted to Long. The error message:  " + nfe.getMessage());
-            vertex = null;
+        }
+        if (missing.isEmpty()) {
+            return vertices;
         }
         
-        return vertex;
+        // In lazy mode the fetched vertices load their properties together
+        List<MongoDBVertex> page = new ArrayList<MongoDBVertex>(missing.size());
+        for (Document document : findElements(getVertexCollection(), new Document(MongoDBConstants.FIELD_ID, new Document("$in", missing)))) {
+            MongoDBVertex vertex = deferProperties(new MongoDBVertex(document, this), document, page);
+            page.add(vertex);
+            vertices.put(normalizeId(vertex.getId()), vertex);
+            if (vertexCache != null) {
+                vertexCache.put(vertex);
+            }
+        }
+        return vertices;
     }
 
     /*
@@ -203,8 +318,7 @@ public class MongoDBGraph implements MetaGraph<MongoDatabase>, KeyIndexableGraph
      */
     @Override
     public Iterable<Vertex> getVertices(String key, Object value) {
-        // TODO Auto-generated method stub
-        return null;
+        return new MongoDBVertexIterable(getVertexCollection().find(new Document(propertyField(key), value)), this);
     }
 
     /*
@@ -221,31 +335,21 @@ public class MongoDBGraph implements MetaGraph<MongoDatabase>, KeyIndexableGraph
         }
         
         if (id == null) {
-            id = getCollectionNextID(edgeCollection);
+            id = idAllocator.nextId(edgeCollection);
         }
         
-        MongoDBEdgeIterable edgeIt;
-        MongoDBEdge edge;
-        
-        // Insert the new edge
-        this.rawGraph.getCollection(edgeCollection).insertOne(
-                new Document(MongoDBConstants.FIELD_ID, id)
+        Document edge = new Document(MongoDBConstants.FIELD_ID, id)
                 .append(MongoDBConstants.FIELD_LABEL, label)
-                .append(MongoDBConstants.FIELD_OUTV, new DBRef(vertexCollection, outVertex.getId()))
-                .append(MongoDBConstants.FIELD_INV, new DBRef(vertexCollection, inVertex.getId()))
-        );
-        
-        // Fetch the newly created edge
-        edgeIt = new MongoDBEdgeIterable(this.rawGraph.getCollection(edgeCollection).find(new Document(MongoDBConstants.FIELD_ID, id)), this);
+                .append(MongoDBConstants.FIELD_OUTV, endpointValue(outVertex.getId()))
+                .append(MongoDBConstants.FIELD_INV, endpointValue(inVertex.getId()));
         
-        try {
-            edge = (MongoDBEdge) edgeIt.iterator().next();
-        } catch (NoSuchElementException nsee) {
-            logger.warn("Newly created edge could not be fetched. The error message: " + nsee.getMessage());
-            edge = null;
+        // Insert the new edge
+        writeInsert(getEdgeCollection(), edge);
+        if (adjacencyLists != null) {
+            adjacencyLists.addEdge(id, label, outVertex.getId(), inVertex.getId());
         }
-            
-        return edge;
+        
+        return new MongoDBEdge(edge, this);
     }
 
     /*
@@ -255,8 +359,25 @@ public class MongoDBGraph implements MetaGraph<MongoDatabase>, KeyIndexableGraph
      */
     @Override
     public Edge getEdge(Object id) {
-        // TODO Auto-generated method stub
-        return null;
+        if (null == id) {
+            throw ExceptionFactory.edgeIdCanNotBeNull();
+        }
+        
+        MongoDBEdge edge = edgeCache == null ? null : edgeCache.get(id);
+        if (edge != null) {
+            return edge;
+        }
+        
+        Document document = findElements(getEdgeCollection(), new Document(MongoDBConstants.FIELD_ID, id)).first();
+        if (document == null) {
+            return null;
+        }
+        
+        edge = deferProperties(new MongoDBEdge(document, this), document, null);
+        if (edgeCache != null) {
+            edgeCache.put(edge);
+        }
+        return edge;
     }
 
     /*
@@ -290,8 +411,7 @@ public class MongoDBGraph implements MetaGraph<MongoDatabase>, KeyIndexableGraph
      */
     @Override
     public Iterable<Edge> getEdges(String key, Object value) {
-        // TODO Auto-generated method stub
-        return null;
+        return new MongoDBEdgeIterable(getEdgeCollection().find(new Document(propertyField(key), value)), this);
     }
 
     /*
@@ -301,8 +421,36 @@ public class MongoDBGraph implements MetaGraph<MongoDatabase>, KeyIndexableGraph
      */
     @Override
     public GraphQuery query() {
-        // TODO Auto-generated method stub
-        return null;
+        return new MongoDBGraphQuery(this);
+    }
+
+    /**
+     * Finds the vertices reachable from a vertex with a single
+     * <code>$graphLookup</code> aggregation, see {@link MongoDBGraphLookup}.
+     * 
+     * @param vertexId the start vertex
+     * @param direction
+     * @param maxDepth maximum number of hops
+     * @param labels the labels of the edges to follow, any if none
+     * @return the ids of the reached vertices with their number of hops
+     */
+    public Map<Object, Integer> reachable(final Object vertexId, final Direction direction, final int maxDepth, final String... labels) {
+        return new MongoDBGraphLookup(this).reachable(vertexId, direction, maxDepth, labels);
+    }
+    
+    /**
+     * Computes the length of the shortest path between two vertices with a
+     * single <code>$graphLookup</code> aggregation, see {@link MongoDBGraphLookup}.
+     * 
+     * @param fromId
+     * @param toId
+     * @param direction
+     * @param maxDepth maximum number of hops
+     * @param labels the labels of the edges to follow, any if none
+     * @return the number of hops, null if the vertex is not reachable within maxDepth hops
+     */
+    public Integer shortestHops(final Object fromId, final Object toId, final Direction direction, final int maxDepth, final String... labels) {
+        return new MongoDBGraphLookup(this).shortestHops(fromId, toId, direction, maxDepth, labels);
     }
 
     /*
@@ -312,7 +460,10 @@ public class MongoDBGraph implements MetaGraph<MongoDatabase>, KeyIndexableGraph
      */
     @Override
     public void shutdown() {
-        mongoClient.close();
+        disableWriteBehind();
+        if (ownsClient) {
+            mongoClient.close();
+        }
     }
 
     /*
@@ -325,8 +476,17 @@ public class MongoDBGraph implements MetaGraph<MongoDatabase>, KeyIndexableGraph
     @Override
     public <T extends Element> void dropKeyIndex(String key,
             Class<T> elementClass) {
-        // TODO Auto-generated method stub
-
+        MongoCollection<Document> collection = getIndexableCollection(elementClass);
+        
+        try {
+            collection.dropIndex(new Document(propertyField(key), Integer.valueOf(1)));
+        } catch (MongoCommandException mce) {
+            logger.warn("Index of key " + key + " could not be dropped. The error message: " + mce.getMessage());
+        }
+        
+        getMetadataCollection().updateOne(
+                new Document(MongoDBConstants.FIELD_MONGO_ID, collection.getNamespace().getCollectionName()),
+                new Document("$pull", new Document(MongoDBConstants.FIELD_INDEXED_KEYS, key)));
     }
 
     /*
@@ -339,8 +499,35 @@ public class MongoDBGraph implements MetaGraph<MongoDatabase>, KeyIndexableGraph
     @Override
     public <T extends Element> void createKeyIndex(String key,
             Class<T> elementClass, Parameter... indexParameters) {
-        // TODO Auto-generated method stub
+        MongoCollection<Document> collection = getIndexableCollection(elementClass);
+        // Build in the background by default, so large collections are not locked
+        IndexOptions options = new IndexOptions().background(true);
+        
+        for (Parameter<?, ?> parameter : indexParameters) {
+            if (MongoDBConstants.INDEX_PARAMETER_BACKGROUND.equals(parameter.getKey())) {
+                options.background(booleanParameter(parameter));
+            } else if (MongoDBConstants.INDEX_PARAMETER_UNIQUE.equals(parameter.getKey())) {
+                options.unique(booleanParameter(parameter));
+            }
+        }
+        
+        collection.createIndex(new Document(propertyField(key), Integer.valueOf(1)), options);
+        getMetadataCollection().updateOne(
+                new Document(MongoDBConstants.FIELD_MONGO_ID, collection.getNamespace().getCollectionName()),
+                new Document("$addToSet", new Document(MongoDBConstants.FIELD_INDEXED_KEYS, key)),
+                new UpdateOptions().upsert(true));
+    }
 
+    /**
+     * @param parameter an index parameter
+     * @return its value
+     * @throws IllegalArgumentException if the value is not a Boolean
+     */
+    private static boolean booleanParameter(final Parameter<?, ?> parameter) {
+        if (!(parameter.getValue() instanceof Boolean)) {
+            throw new IllegalArgumentException("Index parameter " + parameter.getKey() + " must be a Boolean, got " + parameter.getValue() + ".");
+        }
+        return ((Boolean) parameter.getValue()).booleanValue();
     }
 
     /*
@@ -350,10 +537,18 @@ public class MongoDBGraph implements MetaGraph<MongoDatabase>, KeyIndexableGraph
      * com.tinkerpop.blueprints.KeyIndexableGraph#getIndexedKeys(java.lang.Class
      * )
      */
+    @SuppressWarnings("unchecked")
     @Override
     public <T extends Element> Set<String> getIndexedKeys(Class<T> elementClass) {
-        // TODO Auto-generated method stub
-        return null;
+        MongoCollection<Document> collection = getIndexableCollection(elementClass);
+        Set<String> keys = new HashSet<String>();
+        
+        Document metadata = getMetadataCollection().find(new Document(MongoDBConstants.FIELD_MONGO_ID, collection.getNamespace().getCollectionName())).first();
+        if (metadata != null && metadata.get(MongoDBConstants.FIELD_INDEXED_KEYS) != null) {
+            keys.addAll((List<String>) metadata.get(MongoDBConstants.FIELD_INDEXED_KEYS));
+        }
+        
+        return keys;
     }
 
     /*
@@ -371,14 +566,664 @@ public class MongoDBGraph implements MetaGraph<MongoDatabase>, KeyIndexableGraph
      * @return the edge collection
      */
     public MongoCollection<Document> getEdgeCollection() {
-        return this.rawGraph.getCollection(edgeCollection);
+        return withDecoding(this.rawGraph.getCollection(edgeCollection));
     }
     
     /**
      * @return the vertex collection
      */
     public MongoCollection<Document> getVertexCollection() {
-        return this.rawGraph.getCollection(vertexCollection);
+        return withDecoding(this.rawGraph.getCollection(vertexCollection));
+    }
+    
+    private MongoCollection<Document> withDecoding(final MongoCollection<Document> collection) {
+        CodecRegistry registry = this.lazyDecodingRegistry;
+        return registry == null ? collection : collection.withCodecRegistry(registry);
+    }
+    
+    /**
+     * For the traversals, which only need the endpoints of the edges.
+     * 
+     * @return the edge collection, decoding its documents into
+     *         {@link MongoDBEdgeRecord}s, see {@link MongoDBEdgeRecordCodec}
+     */
+    public MongoCollection<MongoDBEdgeRecord> getEdgeRecordCollection() {
+        return getEdgeCollection().withDocumentClass(MongoDBEdgeRecord.class).withCodecRegistry(this.recordCodecRegistry);
+    }
+    
+    /**
+     * @return the collection keeping the indexed keys of the graph
+     */
+    public MongoCollection<Document> getMetadataCollection() {
+        return this.rawGraph.getCollection(MongoDBConstants.DEFAULT_METADATA_COLLECTION);
+    }
+    
+    /**
+     * @param elementClass
+     * @return the vertex or edge collection, depending on the element class
+     */
+    private <T extends Element> MongoCollection<Document> getIndexableCollection(Class<T> elementClass) {
+        if (elementClass == null) {
+            throw ExceptionFactory.classForElementCannotBeNull();
+        } else if (Vertex.class.isAssignableFrom(elementClass)) {
+            return getVertexCollection();
+        } else if (Edge.class.isAssignableFrom(elementClass)) {
+            return getEdgeCollection();
+        } else {
+            throw ExceptionFactory.classIsNotIndexable(elementClass);
+        }
+    }
+    
+    /**
+     * @return the format the edge endpoints are stored in
+     */
+    public MongoDBEdgeFormat getEdgeFormat() {
+        return this.edgeFormat;
+    }
+    
+    /**
+     * Changes the format the edge endpoints are stored in. Only allowed while
+     * the edge collection is empty, existing edges are converted with a
+     * {@link MongoDBEdgeFormatMigrator}.
+     * 
+     * @param edgeFormat
+     */
+    public void setEdgeFormat(final MongoDBEdgeFormat edgeFormat) {
+        if (edgeFormat == this.edgeFormat) {
+            return;
+        }
+        if (getEdgeCollection().countDocuments(new Document(), new CountOptions().limit(1)) > 0) {
+            throw new IllegalStateException("The edge collection is not empty, its edges must be migrated with MongoDBEdgeFormatMigrator.");
+        }
+        updateEdgeFormat(edgeFormat);
+    }
+    
+    /**
+     * Stores the edge format in the metadata collection. Other graph instances
+     * opened on the same collections pick it up when they are reopened.
+     * 
+     * @param edgeFormat
+     */
+    void updateEdgeFormat(final MongoDBEdgeFormat edgeFormat) {
+        getMetadataCollection().updateOne(new Document(MongoDBConstants.FIELD_MONGO_ID, edgeCollection),
+                new Document("$set", new Document(MongoDBConstants.FIELD_EDGE_FORMAT, edgeFormat.name())),
+                new UpdateOptions().upsert(true));
+        this.edgeFormat = edgeFormat;
+    }
+    
+    private MongoDBEdgeFormat loadEdgeFormat() {
+        Document metadata = getMetadataCollection().find(new Document(MongoDBConstants.FIELD_MONGO_ID, edgeCollection)).first();
+        if (metadata == null || metadata.getString(MongoDBConstants.FIELD_EDGE_FORMAT) == null) {
+            return MongoDBEdgeFormat.DBREF;
+        }
+        return MongoDBEdgeFormat.valueOf(metadata.getString(MongoDBConstants.FIELD_EDGE_FORMAT));
+    }
+    
+    /**
+     * @param vertexId
+     * @return the value an edge endpoint is stored with
+     */
+    Object endpointValue(final Object vertexId) {
+        if (this.edgeFormat == MongoDBEdgeFormat.DBREF) {
+            return new DBRef(vertexCollection, vertexId);
+        }
+        return vertexId;
+    }
+    
+    /**
+     * @param vertexId
+     * @return the condition matching an edge endpoint, both representations
+     *         while the edges are being migrated
+     */
+    Object endpointFilter(final Object vertexId) {
+        if (this.edgeFormat == MongoDBEdgeFormat.MIGRATING) {
+            return new Document("$in", Arrays.asList(new DBRef(vertexCollection, vertexId), vertexId));
+        }
+        return endpointValue(vertexId);
+    }
+    
+    /**
+     * @param endpoint the stored value of an edge endpoint
+     * @return the id of the vertex, whatever the format is
+     */
+    static Object endpointId(final Object endpoint) {
+        DBRef ref = asDBRef(endpoint);
+        return ref == null ? endpoint : ref.getId();
+    }
+    
+    /**
+     * The driver decodes the DBRefs embedded in a {@link Document} as
+     * <code>{$ref, $id}</code> sub-documents, only the ones built on the
+     * client are {@link DBRef}s.
+     * 
+     * @param endpoint the stored value of an edge endpoint
+     * @return the reference, null if the endpoint is a raw id
+     */
+    static DBRef asDBRef(final Object endpoint) {
+        if (endpoint instanceof DBRef) {
+            return (DBRef) endpoint;
+        }
+        if (endpoint instanceof Document && ((Document) endpoint).containsKey(DBREF_COLLECTION) && ((Document) endpoint).containsKey(DBREF_ID)) {
+            return new DBRef(((Document) endpoint).getString(DBREF_COLLECTION), ((Document) endpoint).get(DBREF_ID));
+        }
+        return null;
+    }
+    
+    /**
+     * Aggregation expression reading the vertex id of an edge endpoint.
+     * Field paths cannot address the <code>$id</code> of a {@link DBRef}, so
+     * the reference is converted into its <code>[$ref, $id]</code> key/value
+     * pairs first.
+     * 
+     * @param field {@link MongoDBConstants#FIELD_OUTV} or {@link MongoDBConstants#FIELD_INV}
+     * @return the expression
+     */
+    Object endpointIdExpression(final String field) {
+        Document refId = new Document("$let", new Document("vars", new Document("ref", new Document("$objectToArray", "$" + field)))
+                .append("in", new Document("$arrayElemAt", Arrays.asList("$$ref.v", Integer.valueOf(1)))));
+        if (this.edgeFormat == MongoDBEdgeFormat.DBREF) {
+            return refId;
+        } else if (this.edgeFormat == MongoDBEdgeFormat.RAW_ID) {
+            return "$" + field;
+        }
+        return new Document("$cond", Arrays.asList(
+                new Document("$eq", Arrays.asList(new Document("$type", "$" + field), "object")),
+                refId,
+                "$" + field));
+    }
+    
+    /**
+     * @param vertexIds
+     * @return the condition matching the edge endpoints of any of the vertices
+     */
+    Document endpointInFilter(final Collection<?> vertexIds) {
+        List<Object> values = new ArrayList<Object>(this.edgeFormat == MongoDBEdgeFormat.MIGRATING ? 2 * vertexIds.size() : vertexIds.size());
+        for (Object vertexId : vertexIds) {
+            if (this.edgeFormat == MongoDBEdgeFormat.MIGRATING) {
+                values.add(new DBRef(vertexCollection, vertexId));
+                values.add(vertexId);
+            } else {
+                values.add(endpointValue(vertexId));
+            }
+        }
+        return new Document("$in", values);
+    }
+    
+    /**
+     * @param id
+     * @return true if the id is stored as an integer, int32 or int64
+     */
+    static boolean isIntegralId(final Object id) {
+        return id instanceof Long || id instanceof Integer || id instanceof Short || id instanceof Byte;
+    }
+    
+    /**
+     * Converts an id given to {@link #getVertex(Object)}: numbers are
+     * truncated, strings are parsed, as decimals if they aren't integers.
+     * 
+     * @param id
+     * @return the id as a long
+     * @throws NumberFormatException if the id is not a number
+     */
+    static long coerceLongId(final Object id) throws NumberFormatException {
+        if (id instanceof Number) {
+            return ((Number) id).longValue();
+        }
+        String value = id.toString();
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException nfe) {
+            return (long) Double.parseDouble(value);
+        }
+    }
+    
+    /**
+     * Numbers and numeric strings are turned into the Long the counter
+     * allocator stores, any other id, e.g. an ObjectId or a UUID string, is
+     * left as it is.
+     * 
+     * @param id
+     * @return the id to look the vertex up with
+     */
+    static Object coerceVertexId(final Object id) {
+        if (!(id instanceof Number) && !(id instanceof String)) {
+            return id;
+        }
+        try {
+            return Long.valueOf(coerceLongId(id));
+        } catch (NumberFormatException nfe) {
+            return id;
+        }
+    }
+    
+    /**
+     * Numeric ids are stored as Integer or Long depending on who wrote them,
+     * this gives the same key to both, e.g. for caches and visited sets.
+     * 
+     * @param id
+     * @return the id, as a Long if it is an integral number
+     */
+    static Object normalizeId(final Object id) {
+        if (id instanceof Integer || id instanceof Short || id instanceof Byte) {
+            return Long.valueOf(((Number) id).longValue());
+        }
+        return id;
+    }
+    
+    /**
+     * @param key
+     * @return the path of a property key in an element document
+     */
+    static String propertyField(String key) {
+        return MongoDBConstants.FIELD_PROPERTIES + "." + key;
+    }
+    
+    /**
+     * Enables caching of the vertices and edges fetched by id, at most
+     * <code>maxSize</code> of each are kept. {@link MongoDBVertex#getVertices(com.tinkerpop.blueprints.Direction, String...)}
+     * serves the cached adjacent vertices and only fetches the others.
+     * Calling it again replaces the caches with empty ones.
+     * 
+     * @param maxSize
+     */
+    public void enableElementCache(final int maxSize) {
+        this.vertexCache = new MongoDBElementCache<MongoDBVertex>(maxSize);
+        this.edgeCache = new MongoDBElementCache<MongoDBEdge>(maxSize);
+    }
+    
+    public void disableElementCache() {
+        this.vertexCache = null;
+        this.edgeCache = null;
+    }
+    
+    /**
+     * @return the vertex cache, null if caching is disabled
+     */
+    public MongoDBElementCache<MongoDBVertex> getVertexCache() {
+        return this.vertexCache;
+    }
+    
+    /**
+     * @return the edge cache, null if caching is disabled
+     */
+    public MongoDBElementCache<MongoDBEdge> getEdgeCache() {
+        return this.edgeCache;
+    }
+    
+    /**
+     * Evicts the other cached copies of a written element, see
+     * {@link MongoDBElementCache#evictOtherCopy(MongoDBElement)}.
+     * 
+     * @param element
+     */
+    void cacheWritten(final MongoDBElement element) {
+        if (element instanceof MongoDBVertex && vertexCache != null) {
+            vertexCache.evictOtherCopy((MongoDBVertex) element);
+        } else if (element instanceof MongoDBEdge && edgeCache != null) {
+            edgeCache.evictOtherCopy((MongoDBEdge) element);
+        }
+    }
+    
+    /**
+     * Evicts a removed element from the cache.
+     * 
+     * @param element
+     */
+    void cacheRemoved(final MongoDBElement element) {
+        if (element instanceof MongoDBVertex && vertexCache != null) {
+            vertexCache.invalidate(element.getId());
+        } else if (element instanceof MongoDBEdge && edgeCache != null) {
+            edgeCache.invalidate(element.getId());
+        }
+    }
+    
+    /**
+     * In lazy mode the vertices and edges are fetched with their id, label
+     * and endpoints only. Their properties are loaded on first access, with
+     * a single query for the whole page of results they came from, so
+     * traversals that only look at the structure of the graph never
+     * transfer them.
+     * 
+     * @param lazyProperties
+     */
+    public void setLazyProperties(final boolean lazyProperties) {
+        this.lazyProperties = lazyProperties;
+    }
+    
+    public boolean isLazyProperties() {
+        return this.lazyProperties;
+    }
+    
+    /**
+     * When enabled, the documents read from the vertex and edge collections
+     * keep their BSON bytes and only the fields which are read get decoded,
+     * see {@link MongoDBLazyDocument}: reading one property of an element
+     * with many of them decodes that property, the id and the label only.
+     * 
+     * @param lazyDecoding
+     */
+    public void setLazyDecoding(final boolean lazyDecoding) {
+        if (!lazyDecoding) {
+            this.lazyDecodingRegistry = null;
+        } else if (this.lazyDecodingRegistry == null) {
+            CodecRegistry registry = this.rawGraph.getCodecRegistry();
+            this.lazyDecodingRegistry = CodecRegistries.fromRegistries(CodecRegistries.fromCodecs(new MongoDBLazyDocumentCodec(registry)), registry);
+        }
+    }
+    
+    public boolean isLazyDecoding() {
+        return this.lazyDecodingRegistry != null;
+    }
+    
+    /**
+     * When enabled, the edge iterables resolve the endpoint vertices of each
+     * page of edges with a single query on the first
+     * {@link MongoDBEdge#getOutV()} or {@link MongoDBEdge#getinV()} of the
+     * page, instead of one query per call, see {@link MongoDBEdgePage}.
+     * 
+     * @param endpointPrefetch
+     */
+    public void setEndpointPrefetch(final boolean endpointPrefetch) {
+        this.endpointPrefetch = endpointPrefetch;
+    }
+    
+    public boolean isEndpointPrefetch() {
+        return this.endpointPrefetch;
+    }
+    
+    /**
+     * @param collection
+     * @param filter
+     * @return the matching elements, without their properties in lazy mode
+     */
+    FindIterable<Document> findElements(final MongoCollection<Document> collection, final Document filter) {
+        FindIterable<Document> result = collection.find(filter);
+        return lazyProperties ? result.projection(lazyProjection()) : result;
+    }
+    
+    /**
+     * @return the fields fetched in lazy mode
+     */
+    Document lazyProjection() {
+        return new Document(MongoDBConstants.FIELD_ID, Integer.valueOf(1))
+                .append(MongoDBConstants.FIELD_LABEL, Integer.valueOf(1))
+                .append(MongoDBConstants.FIELD_OUTV, Integer.valueOf(1))
+                .append(MongoDBConstants.FIELD_INV, Integer.valueOf(1));
+    }
+    
+    /**
+     * Defers loading the properties of an element built from a document
+     * fetched in lazy mode. Documents which came with their properties are
+     * left as they are.
+     * 
+     * @param element
+     * @param document
+     * @param page the elements whose properties are loaded together, null for the element only
+     * @return the element
+     */
+    <T extends MongoDBElement> T deferProperties(final T element, final Document document, final List<? extends MongoDBElement> page) {
+        if (lazyProperties && !document.containsKey(MongoDBConstants.FIELD_PROPERTIES)) {
+            element.deferProperties(page);
+        }
+        return element;
+    }
+    
+    /**
+     * Loads the properties of the given elements which were fetched without
+     * them, with one query per collection.
+     * 
+     * @param elements
+     */
+    public void loadProperties(final Collection<? extends MongoDBElement> elements) {
+        Map<Object, MongoDBElement> vertices = new HashMap<Object, MongoDBElement>();
+        Map<Object, MongoDBElement> edges = new HashMap<Object, MongoDBElement>();
+        for (MongoDBElement element : elements) {
+            if (!element.isPropertiesLoaded()) {
+                (element instanceof MongoDBVertex ? vertices : edges).put(normalizeId(element.getId()), element);
+            }
+        }
+        loadProperties(getVertexCollection(), vertices);
+        loadProperties(getEdgeCollection(), edges);
+    }
+    
+    private void loadProperties(final MongoCollection<Document> collection, final Map<Object, MongoDBElement> elements) {
+        if (elements.isEmpty()) {
+            return;
+        }
+        
+        Document filter = new Document(MongoDBConstants.FIELD_ID, new Document("$in", new ArrayList<Object>(elements.keySet())));
+        Document projection = new Document(MongoDBConstants.FIELD_ID, Integer.valueOf(1)).append(MongoDBConstants.FIELD_PROPERTIES, Integer.valueOf(1));
+        for (Document document : collection.find(filter).projection(projection)) {
+            MongoDBElement element = elements.remove(normalizeId(document.get(MongoDBConstants.FIELD_ID)));
+            if (element != null) {
+                element.propertiesLoaded((Document) document.get(MongoDBConstants.FIELD_PROPERTIES));
+            }
+        }
+        // Removed in the meantime
+        for (MongoDBElement element : elements.values()) {
+            element.propertiesLoaded(null);
+        }
+    }
+    
+    /**
+     * Keeps the adjacency of the vertices in their documents, see
+     * {@link MongoDBAdjacencyLists}. Only the edges added from now on are
+     * listed, so it should be enabled before the graph is loaded, and the
+     * graph should be opened the same way afterwards.
+     * 
+     * @param maxEmbeddedEdges number of edges per direction kept in a vertex document before spilling into buckets
+     */
+    public void enableAdjacencyLists(final int maxEmbeddedEdges) {
+        this.adjacencyLists = new MongoDBAdjacencyLists(this, maxEmbeddedEdges);
+    }
+    
+    /**
+     * @return the adjacency lists, null if they are disabled
+     */
+    public MongoDBAdjacencyLists getAdjacencyLists() {
+        return this.adjacencyLists;
+    }
+    
+    /**
+     * Buffers the property updates of the elements in memory and writes them
+     * in bulk, see {@link MongoDBWriteBuffer}. The updates pending in a
+     * previous buffer are flushed first.
+     * 
+     * @param maxPendingElements number of elements with pending updates that triggers a flush
+     * @param flushIntervalMillis period of the background flush, 0 disables it
+     */
+    public synchronized void enableWriteBehind(final int maxPendingElements, final long flushIntervalMillis) {
+        MongoDBWriteBuffer previous = this.writeBuffer;
+        this.writeBuffer = new MongoDBWriteBuffer(this, maxPendingElements, flushIntervalMillis);
+        if (previous != null) {
+            previous.close();
+        }
+    }
+    
+    /**
+     * Flushes the pending property updates and goes back to writing them one by one.
+     */
+    public synchronized void disableWriteBehind() {
+        MongoDBWriteBuffer previous = this.writeBuffer;
+        this.writeBuffer = null;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+    
+    /**
+     * @return the write-behind buffer, null if write-behind is disabled
+     */
+    public MongoDBWriteBuffer getWriteBuffer() {
+        return this.writeBuffer;
+    }
+    
+    /**
+     * Writes the property updates pending in the write-behind buffer.
+     * 
+     * @return the number of elements updated, 0 if write-behind is disabled
+     */
+    public int flush() {
+        MongoDBWriteBuffer buffer = this.writeBuffer;
+        return buffer == null ? 0 : buffer.flush();
+    }
+    
+    MongoClient getMongoClient() {
+        return this.mongoClient;
+    }
+    
+    /**
+     * Stores a new element document.
+     * 
+     * @param collection
+     * @param document
+     */
+    void writeInsert(final MongoCollection<Document> collection, final Document document) {
+        collection.insertOne(document);
+    }
+    
+    /**
+     * Stores a property of an element, through the write-behind buffer if it
+     * is enabled.
+     * 
+     * @param element
+     * @param key
+     * @param value
+     */
+    void writeProperty(final MongoDBElement element, final String key, final Object value) {
+        MongoDBWriteBuffer buffer = this.writeBuffer;
+        if (buffer != null) {
+            buffer.setProperty(element, key, value);
+            return;
+        }
+        UpdateResult result = element.getMongoCollection().updateOne(element.idFilter(), new Document("$set", new Document(propertyField(key), value)));
+        if (result.getMatchedCount() == result.getModifiedCount() && logger.isDebugEnabled()) {
+            logger.debug("Property of element " + element.getId() + " is set.");
+        }
+    }
+    
+    /**
+     * Removes a property of an element, through the write-behind buffer if it
+     * is enabled.
+     * 
+     * @param element
+     * @param key
+     */
+    void writePropertyRemoval(final MongoDBElement element, final String key) {
+        MongoDBWriteBuffer buffer = this.writeBuffer;
+        if (buffer != null) {
+            buffer.removeProperty(element, key);
+            return;
+        }
+        UpdateResult result = element.getMongoCollection().updateOne(element.idFilter(), new Document("$unset", new Document(propertyField(key), "")));
+        if (result.getMatchedCount() == result.getModifiedCount() && logger.isDebugEnabled()) {
+            logger.debug("Property of element " + element.getId() + " is unset.");
+        }
+    }
+    
+    /**
+     * Deletes an element, dropping its updates pending in the write-behind
+     * buffer and its entries in the adjacency lists.
+     * 
+     * @param element
+     */
+    void writeRemoval(final MongoDBElement element) {
+        MongoDBWriteBuffer buffer = this.writeBuffer;
+        if (buffer != null) {
+            buffer.discard(element);
+        }
+        element.getMongoCollection().deleteOne(element.idFilter());
+        if (adjacencyLists != null) {
+            if (element instanceof MongoDBEdge) {
+                adjacencyLists.removeEdge(element.getId(), ((MongoDBEdge) element).getOutVertexId(), ((MongoDBEdge) element).getInVertexId());
+            } else {
+                adjacencyLists.removeVertex(element.getId());
+            }
+        }
+    }
+    
+    /**
+     * @return the cursor batch size used by the vertex and edge iterables
+     */
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+    
+    /**
+     * Sets the number of documents fetched per round trip while iterating
+     * vertices and edges. 0 lets the driver decide.
+     * 
+     * @param batchSize
+     */
+    public void setBatchSize(final int batchSize) {
+        if (batchSize < 0) {
+            throw new IllegalArgumentException("batchSize cannot be negative.");
+        }
+        this.batchSize = batchSize;
+    }
+    
+    /**
+     * @return the allocator generating ids of the elements added without one
+     */
+    public MongoDBIdAllocator getIdAllocator() {
+        return this.idAllocator;
+    }
+    
+    /**
+     * Replaces the id allocator, e.g. with a {@link MongoDBObjectIdAllocator}
+     * or a {@link MongoDBUUIDAllocator}. Defaults to a
+     * {@link MongoDBCounterIdAllocator}.
+     * 
+     * @param idAllocator
+     */
+    public void setIdAllocator(final MongoDBIdAllocator idAllocator) {
+        if (idAllocator == null) {
+            throw new IllegalArgumentException("idAllocator cannot be null.");
+        }
+        this.idAllocator = idAllocator;
+    }
+    
+    /**
+     * Creates the indexes every graph relies on, existing ones are left as
+     * they are: a unique index on {@link MongoDBConstants#FIELD_ID} for both
+     * collections, and the compound {outv, label} and {inv, label} indexes
+     * serving the adjacency lookups of {@link MongoDBVertex}.
+     */
+    private void createIndexes() {
+        createUniqueIdIndex(getVertexCollection());
+        createUniqueIdIndex(getEdgeCollection());
+        getEdgeCollection().createIndex(new Document(MongoDBConstants.FIELD_OUTV, Integer.valueOf(1)).append(MongoDBConstants.FIELD_LABEL, Integer.valueOf(1)));
+        getEdgeCollection().createIndex(new Document(MongoDBConstants.FIELD_INV, Integer.valueOf(1)).append(MongoDBConstants.FIELD_LABEL, Integer.valueOf(1)));
+    }
+    
+    private void createUniqueIdIndex(final MongoCollection<Document> collection) {
+        try {
+            collection.createIndex(new Document(MongoDBConstants.FIELD_ID, Integer.valueOf(1)), new IndexOptions().unique(true));
+        } catch (MongoCommandException mce) {
+            // e.g. a non unique index on the same key created by an earlier version
+            logger.warn("Unique index on " + MongoDBConstants.FIELD_ID + " could not be created in " + collection.getNamespace() + ". The error message: " + mce.getMessage());
+        }
+    }
+    
+    /**
+     * Checks the version of the server the graph is connected to. The version
+     * is fetched once with the <code>buildInfo</code> command.
+     * 
+     * @param version e.g. 3, 4, 4 for 3.4.4
+     * @return true if the server version is equal or later than the given one
+     */
+    @SuppressWarnings("unchecked")
+    public boolean isServerVersionAtLeast(final int... version) {
+        if (serverVersion == null) {
+            serverVersion = (List<Integer>) this.rawGraph.runCommand(new Document("buildInfo", Integer.valueOf(1))).get("versionArray");
+        }
+        for (int i = 0; i < version.length; i++) {
+            int actual = i < serverVersion.size() ? serverVersion.get(i).intValue() : 0;
+            if (actual != version[i]) {
+                return actual > version[i];
+            }
+        }
+        return true;
     }
     
     /**
@@ -387,17 +1232,23 @@ public class MongoDBGraph implements MetaGraph<MongoDatabase>, KeyIndexableGraph
      * 
      * @param collectionName
      * @return Integer
+     * @deprecated sorts the whole collection and races with concurrent
+     *             writers, use {@link #getIdAllocator()} instead.
      */
+    @Deprecated
     public Integer getCollectionNextID (String collectionName) {
-        Integer lastId = null;
-        
-        try {
-            lastId = (Integer) this.rawGraph.getCollection(collectionName).find().sort(new Document(MongoDBConstants.FIELD_ID, new Integer(-1))).iterator().next().get(MongoDBConstants.FIELD_ID);
-            return Integer.valueOf(lastId.intValue() + 1);
-        } catch (NoSuchElementException nsee) {
-            lastId = Integer.valueOf(1);
+        return Integer.valueOf((int) getCollectionNextLongID(collectionName));
+    }
+    
+    /**
+     * @param collectionName
+     * @return the greatest id of the collection plus one, 1 if it is empty
+     */
+    public long getCollectionNextLongID(String collectionName) {
+        Document last = this.rawGraph.getCollection(collectionName).find().sort(new Document(MongoDBConstants.FIELD_ID, Integer.valueOf(-1))).first();
+        if (last == null) {
+            return 1L;
         }
-        
-        return lastId;
+        return ((Number) last.get(MongoDBConstants.FIELD_ID)).longValue() + 1L;
     }
 }
@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.util.ExceptionFactory;
+
+/**
+ * Traversals run inside the server as a single <code>$graphLookup</code>
+ * aggregation over the edge collection: the edges are followed recursively
+ * from a start vertex, up to <code>maxDepth</code> hops, optionally through
+ * some labels only (<code>restrictSearchWithMatch</code>). The server reports
+ * the depth each edge has been reached at, which gives the number of hops to
+ * every reached vertex.
+ * <p>
+ * Needs a 3.4 or later server. <code>$graphLookup</code> keeps the edges it
+ * collects in memory, within the 100MB limit of an aggregation stage, so
+ * very large reachable sets should be traversed with {@link MongoDBTraversal}
+ * instead. Directions follow Blueprints, BOTH is not supported, and neither
+ * is a collection being migrated by {@link MongoDBEdgeFormatMigrator}.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBGraphLookup {
+    private static final String FIELD_PATH = "path";
+    private static final int[] GRAPH_LOOKUP_SERVER_VERSION = {3, 4};
+    
+    private final MongoDBGraph graph;
+    
+    public MongoDBGraphLookup(final MongoDBGraph graph) {
+        this.graph = graph;
+    }
+    
+    /**
+     * @param vertexId the start vertex
+     * @param direction
+     * @param maxDepth maximum number of hops
+     * @param labels the labels of the edges to follow, any if none
+     * @return the ids of the vertices reachable from the start vertex, with
+     *         the number of hops of the shortest path, ordered by hops
+     */
+    public Map<Object, Integer> reachable(final Object vertexId, final Direction direction, final int maxDepth, final String... labels) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("maxDepth must be positive.");
+        }
+        if (direction.equals(Direction.BOTH)) {
+            throw ExceptionFactory.bothIsNotSupported();
+        }
+        if (graph.getEdgeFormat() == MongoDBEdgeFormat.MIGRATING) {
+            throw new IllegalStateException("$graphLookup cannot follow edges stored in two formats, the migration must be completed first.");
+        }
+        if (!graph.isServerVersionAtLeast(GRAPH_LOOKUP_SERVER_VERSION)) {
+            throw new UnsupportedOperationException("$graphLookup needs a 3.4 or later server.");
+        }
+        
+        // OUT: edges leaving a vertex are matched by outv, the next vertex is the inv
+        String connectTo = direction.equals(Direction.OUT) ? MongoDBConstants.FIELD_OUTV : MongoDBConstants.FIELD_INV;
+        String connectFrom = direction.equals(Direction.OUT) ? MongoDBConstants.FIELD_INV : MongoDBConstants.FIELD_OUTV;
+        
+        Document graphLookup = new Document("from", graph.getEdgeCollection().getNamespace().getCollectionName())
+                .append("startWith", new Document("$literal", graph.endpointValue(vertexId)))
+                .append("connectFromField", connectFrom)
+                .append("connectToField", connectTo)
+                .append("as", FIELD_PATH)
+                // Depth 0 is the edges of the start vertex
+                .append("maxDepth", Integer.valueOf(maxDepth - 1))
+                .append("depthField", MongoDBConstants.FIELD_DEPTH);
+        if (labels.length > 0) {
+            graphLookup.append("restrictSearchWithMatch", new Document(MongoDBConstants.FIELD_LABEL, new Document("$in", Arrays.asList(labels))));
+        }
+        
+        List<Document> pipeline = Arrays.asList(
+                new Document("$match", new Document(MongoDBConstants.FIELD_ID, vertexId)),
+                new Document("$graphLookup", graphLookup),
+                new Document("$unwind", "$" + FIELD_PATH),
+                new Document("$group", new Document(MongoDBConstants.FIELD_MONGO_ID, graph.endpointIdExpression(FIELD_PATH + "." + connectFrom))
+                        .append(MongoDBConstants.FIELD_DEPTH, new Document("$min", "$" + FIELD_PATH + "." + MongoDBConstants.FIELD_DEPTH))),
+                new Document("$sort", new Document(MongoDBConstants.FIELD_DEPTH, Integer.valueOf(1))));
+        
+        Map<Object, Integer> hops = new LinkedHashMap<Object, Integer>();
+        Object start = MongoDBGraph.normalizeId(vertexId);
+        for (Document reached : graph.getVertexCollection().aggregate(pipeline)) {
+            Object id = reached.get(MongoDBConstants.FIELD_MONGO_ID);
+            // Cycles lead back to the start vertex
+            if (!start.equals(MongoDBGraph.normalizeId(id))) {
+                hops.put(id, Integer.valueOf(((Number) reached.get(MongoDBConstants.FIELD_DEPTH)).intValue() + 1));
+            }
+        }
+        return hops;
+    }
+    
+    /**
+     * @param fromId
+     * @param toId
+     * @param direction
+     * @param maxDepth maximum number of hops
+     * @param labels the labels of the edges to follow, any if none
+     * @return the number of hops of the shortest path between the vertices,
+     *         null if there is none within <code>maxDepth</code> hops
+     */
+    public Integer shortestHops(final Object fromId, final Object toId, final Direction direction, final int maxDepth, final String... labels) {
+        Object target = MongoDBGraph.normalizeId(toId);
+        for (Map.Entry<Object, Integer> entry : reachable(fromId, direction, maxDepth, labels).entrySet()) {
+            if (target.equals(MongoDBGraph.normalizeId(entry.getKey()))) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.Collections;
+
+import org.bson.Document;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.GraphQuery;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.DefaultGraphQuery;
+
+/**
+ * {@link GraphQuery} evaluated by MongoDB. The predicates, the limit and an
+ * optional projection of the property keys are sent with a single find, so
+ * only the matching documents go over the wire. The few predicates MongoDB
+ * cannot express are evaluated on the client.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBGraphQuery extends DefaultGraphQuery {
+    private String[] keys;
+    
+    public MongoDBGraphQuery(final MongoDBGraph graph) {
+        super(graph);
+    }
+    
+    /**
+     * Loads only the given property keys of the matching elements.
+     * 
+     * @param keys
+     * @return the query
+     */
+    public MongoDBGraphQuery keys(final String... keys) {
+        this.keys = keys;
+        return this;
+    }
+    
+    /* (non-Javadoc)
+     * @see com.tinkerpop.blueprints.util.DefaultGraphQuery#vertices()
+     */
+    @Override
+    public Iterable<Vertex> vertices() {
+        MongoDBQueryFilter filter = toFilter(false);
+        FindIterable<Document> result = find(((MongoDBGraph) this.graph).getVertexCollection(), filter);
+        
+        return limitAndFilter(new MongoDBVertexIterable(result, (MongoDBGraph) this.graph), result, filter);
+    }
+    
+    /* (non-Javadoc)
+     * @see com.tinkerpop.blueprints.util.DefaultGraphQuery#edges()
+     */
+    @Override
+    public Iterable<Edge> edges() {
+        MongoDBQueryFilter filter = toFilter(true);
+        FindIterable<Document> result = find(((MongoDBGraph) this.graph).getEdgeCollection(), filter);
+        
+        return limitAndFilter(new MongoDBEdgeIterable(result, (MongoDBGraph) this.graph), result, filter);
+    }
+    
+    private MongoDBQueryFilter toFilter(final boolean forEdges) {
+        MongoDBQueryFilter filter = new MongoDBQueryFilter(forEdges);
+        for (HasContainer hasContainer : this.hasContainers) {
+            filter.has(hasContainer.key, hasContainer.predicate, hasContainer.value);
+        }
+        return filter;
+    }
+    
+    private FindIterable<Document> find(final MongoCollection<Document> collection, final MongoDBQueryFilter filter) {
+        FindIterable<Document> result = collection.find(filter.toDocument());
+        
+        if (this.keys != null) {
+            Document projection = new Document(MongoDBConstants.FIELD_ID, Integer.valueOf(1))
+                    .append(MongoDBConstants.FIELD_LABEL, Integer.valueOf(1))
+                    .append(MongoDBConstants.FIELD_OUTV, Integer.valueOf(1))
+                    .append(MongoDBConstants.FIELD_INV, Integer.valueOf(1));
+            for (String key : this.keys) {
+                projection.append(MongoDBGraph.propertyField(key), Integer.valueOf(1));
+            }
+            // The client side conditions are evaluated on the loaded properties
+            for (String field : filter.getResidualFields()) {
+                projection.append(field, Integer.valueOf(1));
+            }
+            result.projection(projection);
+        }
+        
+        return result;
+    }
+    
+    private <T extends Element> Iterable<T> limitAndFilter(final Iterable<T> iterable, final FindIterable<Document> result, final MongoDBQueryFilter filter) {
+        if (this.limit == 0) {
+            // A zero limit means no limit for MongoDB
+            return Collections.emptyList();
+        } else if (!filter.hasResidual()) {
+            if (this.limit != Integer.MAX_VALUE) {
+                result.limit(this.limit);
+            }
+            return iterable;
+        }
+        return filter.filter(iterable, this.limit);
+    }
+}
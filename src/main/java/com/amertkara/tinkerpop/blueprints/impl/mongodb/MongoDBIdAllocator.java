@@ -0,0 +1,38 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+/**
+ * Strategy used by {@link MongoDBGraph} to generate the
+ * {@link MongoDBConstants#FIELD_ID} of vertices and edges that are added
+ * without an explicit id.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public interface MongoDBIdAllocator {
+    
+    /**
+     * Returns a new id that is unique within the given collection.
+     * Implementations must be safe to call from multiple threads.
+     * 
+     * @param collectionName
+     * @return the id
+     */
+    Object nextId(String collectionName);
+}
@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Set of vertex or edge ids. Integral ids, whether stored as int32 or int64,
+ * go unboxed to a {@link MongoDBLongSet}; the others (e.g. ObjectIds or
+ * strings) to a regular set, only created when the first one is added. Not
+ * thread safe.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBIdSet {
+    private final MongoDBLongSet longIds;
+    private Set<Object> otherIds;
+    
+    public MongoDBIdSet() {
+        this.longIds = new MongoDBLongSet();
+    }
+    
+    /**
+     * @param expectedSize
+     */
+    public MongoDBIdSet(final int expectedSize) {
+        this.longIds = new MongoDBLongSet(expectedSize);
+    }
+    
+    /**
+     * @param id
+     * @return true if the id was not in the set
+     */
+    public boolean add(final Object id) {
+        if (MongoDBGraph.isIntegralId(id)) {
+            return longIds.add(((Number) id).longValue());
+        }
+        if (otherIds == null) {
+            otherIds = new HashSet<Object>();
+        }
+        return otherIds.add(id);
+    }
+    
+    public boolean contains(final Object id) {
+        if (MongoDBGraph.isIntegralId(id)) {
+            return longIds.contains(((Number) id).longValue());
+        }
+        return otherIds != null && otherIds.contains(id);
+    }
+    
+    public int size() {
+        return longIds.size() + (otherIds == null ? 0 : otherIds.size());
+    }
+    
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
@@ -0,0 +1,279 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.assertions.Assertions;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+
+/**
+ * {@link Document} keeping the BSON bytes it was read from, see
+ * {@link MongoDBLazyDocumentCodec}. {@link #get(Object)} decodes the given
+ * field only, sub-documents are themselves lazy, so reading the id, the
+ * label or one property of an element leaves the rest of it undecoded.
+ * Decoded fields are kept, so a sub-document is the same instance on every
+ * call.
+ * <p>
+ * Any other access, e.g. a write or the key set, decodes the whole document
+ * once, after which it behaves as a regular {@link Document}.
+ * <p>
+ * The decoding is thread-safe, so a lazy document can be read concurrently,
+ * e.g. when its element is shared through the element cache: the fields are
+ * decoded under the document's lock, and a materialized document only
+ * becomes visible once all of its fields are in. Writes are not guarded,
+ * the same as for any {@link Document}.
+ * <p>
+ * It is not a drop-in {@link Document} for comparisons: as
+ * {@link Document#equals(Object)} compares the classes, a lazy document is
+ * only equal to another lazy document with the same fields, never to a plain
+ * one. Copy it with {@link Document#Document(Map)} to compare it with one.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBLazyDocument extends Document {
+    private static final long serialVersionUID = 1L;
+    private static final String VALUE = "v";
+    
+    private transient volatile RawBsonDocument raw;
+    private transient DocumentCodec codec;
+    private transient Map<String, Object> decoded;
+    
+    /**
+     * @param raw
+     * @param codec decodes the fields
+     */
+    public MongoDBLazyDocument(final RawBsonDocument raw, final DocumentCodec codec) {
+        this.raw = raw;
+        this.codec = codec;
+    }
+    
+    /**
+     * @return true until the whole document has been decoded
+     */
+    public boolean isLazy() {
+        return this.raw != null;
+    }
+    
+    /* (non-Javadoc)
+     * @see org.bson.Document#get(java.lang.Object)
+     */
+    @Override
+    public Object get(final Object key) {
+        if (raw == null) {
+            return super.get(key);
+        }
+        synchronized (this) {
+            if (raw == null) {
+                return super.get(key);
+            }
+            if (decoded != null && decoded.containsKey(key)) {
+                return decoded.get(key);
+            }
+            BsonValue value = key instanceof String ? raw.get(key) : null;
+            if (value == null) {
+                return null;
+            }
+            Object field = decode(value);
+            if (decoded == null) {
+                decoded = new HashMap<String, Object>();
+            }
+            decoded.put((String) key, field);
+            return field;
+        }
+    }
+    
+    /* (non-Javadoc)
+     * @see org.bson.Document#get(java.lang.Object, java.lang.Class)
+     */
+    @Override
+    public <T> T get(final Object key, final Class<T> clazz) {
+        Assertions.notNull("clazz", clazz);
+        return clazz.cast(get(key));
+    }
+    
+    /* (non-Javadoc)
+     * @see org.bson.Document#get(java.lang.Object, java.lang.Object)
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T get(final Object key, final T defaultValue) {
+        Assertions.notNull("defaultValue", defaultValue);
+        Object value = get(key);
+        return value == null ? defaultValue : (T) value;
+    }
+    
+    /* (non-Javadoc)
+     * @see org.bson.Document#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(final Object key) {
+        RawBsonDocument fields = raw;
+        return fields == null ? super.containsKey(key) : fields.containsKey(key);
+    }
+    
+    /* (non-Javadoc)
+     * @see org.bson.Document#size()
+     */
+    @Override
+    public int size() {
+        RawBsonDocument fields = raw;
+        return fields == null ? super.size() : fields.size();
+    }
+    
+    /* (non-Javadoc)
+     * @see org.bson.Document#isEmpty()
+     */
+    @Override
+    public boolean isEmpty() {
+        RawBsonDocument fields = raw;
+        return fields == null ? super.isEmpty() : fields.isEmpty();
+    }
+    
+    @Override
+    public boolean containsValue(final Object value) {
+        materialize();
+        return super.containsValue(value);
+    }
+    
+    @Override
+    public Document append(final String key, final Object value) {
+        materialize();
+        return super.append(key, value);
+    }
+    
+    @Override
+    public Object put(final String key, final Object value) {
+        materialize();
+        return super.put(key, value);
+    }
+    
+    @Override
+    public void putAll(final Map<? extends String, ?> map) {
+        materialize();
+        super.putAll(map);
+    }
+    
+    @Override
+    public Object remove(final Object key) {
+        materialize();
+        return super.remove(key);
+    }
+    
+    @Override
+    public void clear() {
+        materialize();
+        super.clear();
+    }
+    
+    @Override
+    public Set<String> keySet() {
+        materialize();
+        return super.keySet();
+    }
+    
+    @Override
+    public Collection<Object> values() {
+        materialize();
+        return super.values();
+    }
+    
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        materialize();
+        return super.entrySet();
+    }
+    
+    /**
+     * Equal to the lazy documents with the same fields only, the same way
+     * {@link Document#equals(Object)} compares the classes, so that the
+     * relation stays symmetric.
+     * 
+     * @see org.bson.Document#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return entrySet().equals(((MongoDBLazyDocument) o).entrySet());
+    }
+    
+    @Override
+    public int hashCode() {
+        materialize();
+        return super.hashCode();
+    }
+    
+    @Override
+    public String toString() {
+        materialize();
+        return super.toString();
+    }
+    
+    /**
+     * The bytes are not serialized, the decoded fields are.
+     */
+    private Object writeReplace() {
+        materialize();
+        return this;
+    }
+    
+    /**
+     * Decodes the remaining fields, the ones already decoded are kept as
+     * they are. The bytes are dropped last, so the lock-free reads only see
+     * a complete document.
+     */
+    private void materialize() {
+        if (raw == null) {
+            return;
+        }
+        synchronized (this) {
+            if (raw == null) {
+                return;
+            }
+            for (Map.Entry<String, BsonValue> field : raw.entrySet()) {
+                Object value = decoded != null && decoded.containsKey(field.getKey()) ? decoded.get(field.getKey()) : decode(field.getValue());
+                super.put(field.getKey(), value);
+            }
+            decoded = null;
+            raw = null;
+        }
+    }
+    
+    private Object decode(final BsonValue value) {
+        if (value instanceof RawBsonDocument) {
+            return new MongoDBLazyDocument((RawBsonDocument) value, codec);
+        }
+        // The codec decodes documents, so the value is wrapped into one
+        return codec.decode(new BsonDocumentReader(new BsonDocument(VALUE, value)), DecoderContext.builder().build()).get(VALUE);
+    }
+}
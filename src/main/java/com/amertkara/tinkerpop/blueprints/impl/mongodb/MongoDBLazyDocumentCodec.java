@@ -0,0 +1,90 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import org.bson.BsonReader;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.Document;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.RawBsonDocumentCodec;
+import org.bson.codecs.configuration.CodecRegistry;
+
+/**
+ * {@link Document} codec decoding into {@link MongoDBLazyDocument}s: the
+ * bytes of each document are copied as they come, and its fields are only
+ * decoded when they are read. Encoding is left to a {@link DocumentCodec},
+ * so filters, updates and inserts work as usual. Registered on the graph
+ * collections by {@link MongoDBGraph#setLazyDecoding(boolean)}.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBLazyDocumentCodec implements CollectibleCodec<Document> {
+    private final DocumentCodec documentCodec;
+    private final RawBsonDocumentCodec rawCodec = new RawBsonDocumentCodec();
+    
+    /**
+     * @param registry decodes the fields
+     */
+    public MongoDBLazyDocumentCodec(final CodecRegistry registry) {
+        this.documentCodec = new DocumentCodec(registry);
+    }
+    
+    /* (non-Javadoc)
+     * @see org.bson.codecs.Decoder#decode(org.bson.BsonReader, org.bson.codecs.DecoderContext)
+     */
+    @Override
+    public Document decode(final BsonReader reader, final DecoderContext decoderContext) {
+        return new MongoDBLazyDocument(rawCodec.decode(reader, decoderContext), documentCodec);
+    }
+    
+    /* (non-Javadoc)
+     * @see org.bson.codecs.Encoder#encode(org.bson.BsonWriter, java.lang.Object, org.bson.codecs.EncoderContext)
+     */
+    @Override
+    public void encode(final BsonWriter writer, final Document value, final EncoderContext encoderContext) {
+        documentCodec.encode(writer, value, encoderContext);
+    }
+    
+    /* (non-Javadoc)
+     * @see org.bson.codecs.Encoder#getEncoderClass()
+     */
+    @Override
+    public Class<Document> getEncoderClass() {
+        return Document.class;
+    }
+    
+    @Override
+    public Document generateIdIfAbsentFromDocument(final Document document) {
+        return documentCodec.generateIdIfAbsentFromDocument(document);
+    }
+    
+    @Override
+    public boolean documentHasId(final Document document) {
+        return documentCodec.documentHasId(document);
+    }
+    
+    @Override
+    public BsonValue getDocumentId(final Document document) {
+        return documentCodec.getDocumentId(document);
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive longs, holding vertex ids without boxing them.
+ * Not thread safe.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBLongList {
+    private static final int DEFAULT_CAPACITY = 16;
+    
+    private long[] values;
+    private int size;
+    
+    public MongoDBLongList() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * @param capacity
+     */
+    public MongoDBLongList(final int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity cannot be negative.");
+        }
+        this.values = new long[capacity];
+    }
+    
+    public void add(final long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(DEFAULT_CAPACITY, size * 2));
+        }
+        values[size++] = value;
+    }
+    
+    public long get(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return values[index];
+    }
+    
+    public int size() {
+        return this.size;
+    }
+    
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+    
+    public void clear() {
+        size = 0;
+    }
+    
+    /**
+     * @return a copy of the values, in insertion order
+     */
+    public long[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.Arrays;
+
+/**
+ * Set of primitive longs with open addressing, used for the visited vertex
+ * ids of the traversals: a few bytes per id instead of a boxed Long plus a
+ * hash map entry. Not thread safe.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBLongSet {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final long EMPTY = 0L;
+    
+    private long[] table;
+    private int size;
+    // 0 marks the empty slots, it is tracked separately
+    private boolean containsZero;
+    
+    public MongoDBLongSet() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * @param expectedSize
+     */
+    public MongoDBLongSet(final int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        this.table = new long[capacity];
+    }
+    
+    /**
+     * @param value
+     * @return true if the value was not in the set
+     */
+    public boolean add(final long value) {
+        if (value == EMPTY) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        
+        int slot = slot(value, table.length);
+        while (table[slot] != EMPTY) {
+            if (table[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & (table.length - 1);
+        }
+        table[slot] = value;
+        size++;
+        // Keep the load factor under 1/2
+        if (size * 2 > table.length) {
+            resize();
+        }
+        return true;
+    }
+    
+    public boolean contains(final long value) {
+        if (value == EMPTY) {
+            return containsZero;
+        }
+        int slot = slot(value, table.length);
+        while (table[slot] != EMPTY) {
+            if (table[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & (table.length - 1);
+        }
+        return false;
+    }
+    
+    public int size() {
+        return this.size;
+    }
+    
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+    
+    public void clear() {
+        Arrays.fill(table, EMPTY);
+        containsZero = false;
+        size = 0;
+    }
+    
+    /**
+     * @return the values, in no particular order
+     */
+    public long[] toArray() {
+        long[] values = new long[size];
+        int i = 0;
+        if (containsZero) {
+            values[i++] = EMPTY;
+        }
+        for (long value : table) {
+            if (value != EMPTY) {
+                values[i++] = value;
+            }
+        }
+        return values;
+    }
+    
+    private void resize() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        for (long value : old) {
+            if (value != EMPTY) {
+                int slot = slot(value, table.length);
+                while (table[slot] != EMPTY) {
+                    slot = (slot + 1) & (table.length - 1);
+                }
+                table[slot] = value;
+            }
+        }
+    }
+    
+    private static int slot(final long value, final int capacity) {
+        // Sequential ids would cluster without mixing the bits
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (capacity - 1);
+    }
+}
@@ -0,0 +1,232 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.bson.Document;
+
+import com.tinkerpop.blueprints.Compare;
+import com.tinkerpop.blueprints.Contains;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Predicate;
+import com.tinkerpop.blueprints.Query;
+import com.tinkerpop.blueprints.util.StringFactory;
+
+/**
+ * Translates the <code>has</code> conditions of the Blueprints queries into a
+ * MongoDB filter. Conditions MongoDB cannot express are kept aside, to be
+ * evaluated on the client by {@link #filter(Iterable, int)}.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBQueryFilter {
+    private final boolean forEdges;
+    private final List<Document> clauses = new ArrayList<Document>();
+    private final List<Condition> residual = new ArrayList<Condition>();
+    
+    /**
+     * @param forEdges whether <code>label</code> refers to the edge label or to a property
+     */
+    public MongoDBQueryFilter(final boolean forEdges) {
+        this.forEdges = forEdges;
+    }
+    
+    /**
+     * Adds a condition, e.g. one <code>HasContainer</code> of a query.
+     * 
+     * @param key
+     * @param predicate
+     * @param value
+     * @return the filter
+     */
+    public MongoDBQueryFilter has(final String key, final Predicate predicate, final Object value) {
+        Document clause = toClause(field(key), predicate, value);
+        if (clause == null) {
+            residual.add(new Condition(key, predicate, value));
+        } else {
+            clauses.add(clause);
+        }
+        return this;
+    }
+    
+    /**
+     * Adds a raw MongoDB clause.
+     * 
+     * @param clause
+     * @return the filter
+     */
+    public MongoDBQueryFilter and(final Document clause) {
+        clauses.add(clause);
+        return this;
+    }
+    
+    /**
+     * @return the MongoDB filter matching all translated conditions
+     */
+    public Document toDocument() {
+        if (clauses.isEmpty()) {
+            return new Document();
+        } else if (clauses.size() == 1) {
+            return clauses.get(0);
+        }
+        // $and keeps several conditions on the same field, e.g. an interval
+        return new Document("$and", clauses);
+    }
+    
+    /**
+     * @return true if some conditions have to be evaluated on the client
+     */
+    public boolean hasResidual() {
+        return !residual.isEmpty();
+    }
+    
+    /**
+     * @return the document fields read by the client side conditions
+     */
+    public List<String> getResidualFields() {
+        List<String> fields = new ArrayList<String>();
+        for (Condition condition : residual) {
+            fields.add(field(condition.key));
+        }
+        return fields;
+    }
+    
+    /**
+     * @param key a Blueprints property key
+     * @return the path of the key in an element document
+     */
+    public String field(final String key) {
+        if (StringFactory.ID.equals(key)) {
+            return MongoDBConstants.FIELD_ID;
+        } else if (forEdges && StringFactory.LABEL.equals(key)) {
+            return MongoDBConstants.FIELD_LABEL;
+        }
+        return MongoDBGraph.propertyField(key);
+    }
+    
+    /**
+     * Evaluates the client side conditions and applies the limit.
+     * 
+     * @param iterable
+     * @param limit
+     * @return the filtered iterable
+     */
+    public <T extends Element> Iterable<T> filter(final Iterable<T> iterable, final int limit) {
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                final Iterator<T> it = iterable.iterator();
+                
+                return new Iterator<T>() {
+                    private T nextElement;
+                    private int count = 0;
+                    
+                    @Override
+                    public boolean hasNext() {
+                        while (nextElement == null && count < limit && it.hasNext()) {
+                            T element = it.next();
+                            if (isLegal(element)) {
+                                nextElement = element;
+                                count++;
+                            }
+                        }
+                        return nextElement != null;
+                    }
+                    
+                    @Override
+                    public T next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        T element = nextElement;
+                        nextElement = null;
+                        return element;
+                    }
+                    
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+    }
+    
+    private boolean isLegal(final Element element) {
+        for (Condition condition : residual) {
+            Object actual;
+            if (StringFactory.ID.equals(condition.key)) {
+                actual = element.getId();
+            } else if (StringFactory.LABEL.equals(condition.key) && element instanceof Edge) {
+                actual = ((Edge) element).getLabel();
+            } else {
+                actual = element.getProperty(condition.key);
+            }
+            if (!condition.predicate.evaluate(actual, condition.value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    @SuppressWarnings("deprecation")
+    private static Document toClause(final String field, Predicate predicate, final Object value) {
+        if (predicate instanceof Query.Compare) {
+            predicate = Compare.valueOf(((Query.Compare) predicate).name());
+        }
+        
+        if (predicate == Compare.EQUAL) {
+            // A null value matches the elements without the property
+            return new Document(field, value);
+        } else if (predicate == Compare.NOT_EQUAL) {
+            return new Document(field, new Document("$ne", value));
+        } else if (predicate == Compare.GREATER_THAN) {
+            return new Document(field, new Document("$gt", value));
+        } else if (predicate == Compare.GREATER_THAN_EQUAL) {
+            return new Document(field, new Document("$gte", value));
+        } else if (predicate == Compare.LESS_THAN) {
+            return new Document(field, new Document("$lt", value));
+        } else if (predicate == Compare.LESS_THAN_EQUAL) {
+            return new Document(field, new Document("$lte", value));
+        } else if (predicate == Contains.IN && value instanceof Collection) {
+            return new Document(field, new Document("$in", value));
+        } else if (predicate == Contains.NOT_IN && value instanceof Collection) {
+            return new Document(field, new Document("$nin", value));
+        }
+        return null;
+    }
+    
+    private static final class Condition {
+        final String key;
+        final Predicate predicate;
+        final Object value;
+        
+        Condition(final String key, final Predicate predicate, final Object value) {
+            this.key = key;
+            this.predicate = predicate;
+            this.value = value;
+        }
+    }
+}
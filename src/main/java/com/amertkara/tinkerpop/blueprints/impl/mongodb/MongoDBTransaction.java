@@ -0,0 +1,200 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.TransactionBody;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+
+/**
+ * The mutations queued by one thread of a {@link MongoDBTransactionalGraph}.
+ * Writes are collected per element: an element inserted in the transaction
+ * is stored with its final properties, an existing one gets a single
+ * <code>$set</code>/<code>$unset</code> update and a removed one a single
+ * delete. On commit the writes are sent with one <code>bulkWrite</code> per
+ * collection inside a multi-document transaction.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+class MongoDBTransaction {
+    private final MongoDBGraph graph;
+    private final Map<MongoNamespace, Map<Object, PendingWrite>> writes = new LinkedHashMap<MongoNamespace, Map<Object, PendingWrite>>();
+    
+    MongoDBTransaction(final MongoDBGraph graph) {
+        this.graph = graph;
+    }
+    
+    void insert(final MongoNamespace namespace, final Document document) {
+        PendingWrite write = pendingWrite(namespace, document.get(MongoDBConstants.FIELD_ID));
+        write.insert = document;
+        write.removed = false;
+    }
+    
+    void setProperty(final MongoDBElement element, final String key, final Object value) {
+        PendingWrite write = pendingWrite(element.getMongoCollection().getNamespace(), element.getId());
+        String field = MongoDBGraph.propertyField(key);
+        write.unset.remove(field);
+        write.set.put(field, value);
+    }
+    
+    void removeProperty(final MongoDBElement element, final String key) {
+        PendingWrite write = pendingWrite(element.getMongoCollection().getNamespace(), element.getId());
+        String field = MongoDBGraph.propertyField(key);
+        write.set.remove(field);
+        write.unset.put(field, "");
+    }
+    
+    void remove(final MongoDBElement element) {
+        PendingWrite write = pendingWrite(element.getMongoCollection().getNamespace(), element.getId());
+        write.removed = true;
+        write.set.clear();
+        write.unset.clear();
+    }
+    
+    /**
+     * @return true if nothing has been queued
+     */
+    boolean isEmpty() {
+        return writes.isEmpty();
+    }
+    
+    /**
+     * Applies the queued writes atomically. The driver retries the whole
+     * transaction on transient errors.
+     * 
+     * @param session
+     */
+    void commit(final ClientSession session) {
+        if (writes.isEmpty()) {
+            return;
+        }
+        session.withTransaction(new TransactionBody<Void>() {
+            @Override
+            public Void execute() {
+                for (Map.Entry<MongoNamespace, Map<Object, PendingWrite>> entry : writes.entrySet()) {
+                    List<WriteModel<Document>> models = toWriteModels(entry.getValue());
+                    if (!models.isEmpty()) {
+                        graph.getRawGraph().getCollection(entry.getKey().getCollectionName()).bulkWrite(session, models);
+                    }
+                }
+                return null;
+            }
+        });
+    }
+    
+    /**
+     * Evicts the elements touched by the transaction from the element cache,
+     * on commit as well as on rollback: copies cached while it was open may
+     * hold uncommitted or dropped changes.
+     */
+    void invalidateCaches() {
+        String vertexCollection = graph.getVertexCollection().getNamespace().getCollectionName();
+        for (Map.Entry<MongoNamespace, Map<Object, PendingWrite>> entry : writes.entrySet()) {
+            MongoDBElementCache<?> cache = entry.getKey().getCollectionName().equals(vertexCollection) ? graph.getVertexCache() : graph.getEdgeCache();
+            if (cache != null) {
+                for (Object id : entry.getValue().keySet()) {
+                    cache.invalidate(id);
+                }
+            }
+        }
+    }
+    
+    private PendingWrite pendingWrite(final MongoNamespace namespace, final Object id) {
+        Map<Object, PendingWrite> collectionWrites = writes.get(namespace);
+        if (collectionWrites == null) {
+            collectionWrites = new LinkedHashMap<Object, PendingWrite>();
+            writes.put(namespace, collectionWrites);
+        }
+        PendingWrite write = collectionWrites.get(id);
+        if (write == null) {
+            write = new PendingWrite();
+            collectionWrites.put(id, write);
+        }
+        return write;
+    }
+    
+    private static List<WriteModel<Document>> toWriteModels(final Map<Object, PendingWrite> collectionWrites) {
+        List<WriteModel<Document>> models = new ArrayList<WriteModel<Document>>(collectionWrites.size());
+        for (Map.Entry<Object, PendingWrite> entry : collectionWrites.entrySet()) {
+            PendingWrite write = entry.getValue();
+            Document filter = new Document(MongoDBConstants.FIELD_ID, entry.getKey());
+            if (write.removed) {
+                // Nothing to store for an element added and removed in the same transaction
+                if (write.insert == null) {
+                    models.add(new DeleteOneModel<Document>(filter));
+                }
+            } else if (write.insert != null) {
+                models.add(new InsertOneModel<Document>(write.withProperties(write.insert)));
+            } else {
+                Document update = new Document();
+                if (!write.set.isEmpty()) {
+                    update.append("$set", write.set);
+                }
+                if (!write.unset.isEmpty()) {
+                    update.append("$unset", write.unset);
+                }
+                if (!update.isEmpty()) {
+                    models.add(new UpdateOneModel<Document>(filter, update));
+                }
+            }
+        }
+        return models;
+    }
+    
+    /**
+     * Writes queued for a single element.
+     */
+    private static class PendingWrite {
+        private Document insert;
+        private boolean removed;
+        private final Document set = new Document();
+        private final Document unset = new Document();
+        
+        /**
+         * Applies the property changes to a document being inserted.
+         */
+        private Document withProperties(final Document document) {
+            Document properties = (Document) document.get(MongoDBConstants.FIELD_PROPERTIES);
+            if (properties == null) {
+                properties = new Document();
+            }
+            for (String field : set.keySet()) {
+                properties.put(field.substring(MongoDBConstants.FIELD_PROPERTIES.length() + 1), set.get(field));
+            }
+            for (String field : unset.keySet()) {
+                properties.remove(field.substring(MongoDBConstants.FIELD_PROPERTIES.length() + 1));
+            }
+            if (!properties.isEmpty()) {
+                document.put(MongoDBConstants.FIELD_PROPERTIES, properties);
+            }
+            return document;
+        }
+    }
+}
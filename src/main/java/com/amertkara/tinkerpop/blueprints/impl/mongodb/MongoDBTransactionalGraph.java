@@ -0,0 +1,202 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import org.bson.Document;
+
+import com.mongodb.MongoClient;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoCollection;
+import com.tinkerpop.blueprints.Features;
+import com.tinkerpop.blueprints.TransactionalGraph;
+
+/**
+ * {@link MongoDBGraph} whose mutations are applied atomically with MongoDB
+ * multi-document transactions, which need a replica set (a single node one
+ * is enough) running 4.0 or later.
+ * <p>
+ * As in the other Blueprints implementations a transaction is started
+ * implicitly by the first mutation of a thread. Added elements, property
+ * changes and removals are queued in memory per thread (see
+ * {@link MongoDBTransaction}) and written with one <code>bulkWrite</code> per
+ * collection on {@link #commit()}; {@link #rollback()} drops the queue. The
+ * queued changes are visible through the element instances that made them,
+ * but not to the queries, not even the ones of the same thread. They are
+ * kept out of the element cache as well: a touched element is evicted when it
+ * is changed and again when the transaction ends.
+ * <p>
+ * Ids of the added elements are allocated immediately, a rollback leaves a
+ * gap in the sequence. Property updates bypass the write-behind buffer.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBTransactionalGraph extends MongoDBGraph implements TransactionalGraph {
+    private static final Features FEATURES = new Features();
+    
+    private final ThreadLocal<MongoDBTransaction> transaction = new ThreadLocal<MongoDBTransaction>();
+    
+    static {
+        FEATURES.supportsTransactions = Boolean.TRUE;
+    }
+    
+    public MongoDBTransactionalGraph(final String host, final int port, 
+            final String databaseName, final String edgeCollection,
+            final String vertexCollection) {
+        super(host, port, databaseName, edgeCollection, vertexCollection);
+    }
+    
+    public MongoDBTransactionalGraph(final MongoClient mongoClient, final String databaseName,
+            final String edgeCollection, final String vertexCollection) {
+        super(mongoClient, databaseName, edgeCollection, vertexCollection);
+    }
+    
+    /* (non-Javadoc)
+     * @see com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraph#getFeatures()
+     */
+    @Override
+    public Features getFeatures() {
+        return FEATURES;
+    }
+    
+    /* (non-Javadoc)
+     * @see com.tinkerpop.blueprints.TransactionalGraph#stopTransaction(com.tinkerpop.blueprints.TransactionalGraph.Conclusion)
+     */
+    @Deprecated
+    @Override
+    public void stopTransaction(final Conclusion conclusion) {
+        if (Conclusion.SUCCESS.equals(conclusion)) {
+            commit();
+        } else {
+            rollback();
+        }
+    }
+    
+    /* (non-Javadoc)
+     * @see com.tinkerpop.blueprints.TransactionalGraph#commit()
+     */
+    @Override
+    public void commit() {
+        MongoDBTransaction current = this.transaction.get();
+        if (current == null) {
+            return;
+        }
+        this.transaction.remove();
+        
+        if (current.isEmpty()) {
+            return;
+        }
+        ClientSession session = getMongoClient().startSession();
+        try {
+            current.commit(session);
+        } finally {
+            current.invalidateCaches();
+            session.close();
+        }
+    }
+    
+    /* (non-Javadoc)
+     * @see com.tinkerpop.blueprints.TransactionalGraph#rollback()
+     */
+    @Override
+    public void rollback() {
+        MongoDBTransaction current = this.transaction.get();
+        if (current != null) {
+            this.transaction.remove();
+            current.invalidateCaches();
+        }
+    }
+    
+    /* (non-Javadoc)
+     * @see com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraph#shutdown()
+     */
+    @Override
+    public void shutdown() {
+        commit();
+        super.shutdown();
+    }
+    
+    /**
+     * Evicts the element instead of caching it while a transaction is open,
+     * the change is not committed yet.
+     * 
+     * @see com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraph#cacheWritten(com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBElement)
+     */
+    @Override
+    void cacheWritten(final MongoDBElement element) {
+        if (this.transaction.get() == null) {
+            super.cacheWritten(element);
+        } else {
+            cacheRemoved(element);
+        }
+    }
+    
+    /**
+     * Not supported, the lists would be updated outside of the transactions.
+     * 
+     * @see com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraph#enableAdjacencyLists(int)
+     */
+    @Override
+    public void enableAdjacencyLists(final int maxEmbeddedEdges) {
+        throw new UnsupportedOperationException("Adjacency lists are not supported by the transactional graph.");
+    }
+    
+    /* (non-Javadoc)
+     * @see com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraph#writeInsert(com.mongodb.client.MongoCollection, org.bson.Document)
+     */
+    @Override
+    void writeInsert(final MongoCollection<Document> collection, final Document document) {
+        currentTransaction().insert(collection.getNamespace(), document);
+    }
+    
+    /* (non-Javadoc)
+     * @see com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraph#writeProperty(com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBElement, java.lang.String, java.lang.Object)
+     */
+    @Override
+    void writeProperty(final MongoDBElement element, final String key, final Object value) {
+        currentTransaction().setProperty(element, key, value);
+    }
+    
+    /* (non-Javadoc)
+     * @see com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraph#writePropertyRemoval(com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBElement, java.lang.String)
+     */
+    @Override
+    void writePropertyRemoval(final MongoDBElement element, final String key) {
+        currentTransaction().removeProperty(element, key);
+    }
+    
+    /* (non-Javadoc)
+     * @see com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraph#writeRemoval(com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBElement)
+     */
+    @Override
+    void writeRemoval(final MongoDBElement element) {
+        currentTransaction().remove(element);
+    }
+    
+    /**
+     * @return the transaction of the calling thread, started if there is none
+     */
+    private MongoDBTransaction currentTransaction() {
+        MongoDBTransaction current = this.transaction.get();
+        if (current == null) {
+            current = new MongoDBTransaction(this);
+            this.transaction.set(current);
+        }
+        return current;
+    }
+}
@@ -0,0 +1,230 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * Level-synchronous breadth first traversal. Each level is expanded with one
+ * <code>$in</code> query per batch of frontier ids on the edge collection
+ * (see {@link MongoDBFrontierExpander}), so a k-hop expansion costs a handful
+ * of queries instead of one {@link MongoDBVertex#getVertices(Direction, String...)}
+ * call per vertex. The visited ids are kept in a {@link MongoDBIdSet}, so
+ * integral ids are neither boxed nor normalized.
+ * <pre>
+ * List&lt;List&lt;Object&gt;&gt; levels = new MongoDBTraversal(graph)
+ *         .direction(Direction.OUT).labels("knows").maxDepth(3)
+ *         .levels(1L);
+ * </pre>
+ * Directions follow Blueprints, no label means any label. A level larger
+ * than <code>maxFrontier</code> is cut to its first <code>maxFrontier</code>
+ * ids, the rest are neither returned nor expanded.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBTraversal {
+    private static final Logger logger = LoggerFactory.getLogger(MongoDBTraversal.class.getName());
+    
+    private final MongoDBGraph graph;
+    private final MongoDBFrontierExpander expander;
+    private Direction direction = Direction.OUT;
+    private String[] labels = new String[0];
+    private int maxDepth = Integer.MAX_VALUE;
+    private int maxFrontier = Integer.MAX_VALUE;
+    
+    /**
+     * Expands the batches of a level one after the other.
+     * 
+     * @param graph
+     */
+    public MongoDBTraversal(final MongoDBGraph graph) {
+        this(graph, new MongoDBFrontierExpander(graph, MongoDBFrontierExpander.DEFAULT_BATCH_SIZE));
+    }
+    
+    /**
+     * Expands the batches of a level with the given expander, e.g. in parallel.
+     * 
+     * @param graph
+     * @param expander
+     */
+    public MongoDBTraversal(final MongoDBGraph graph, final MongoDBFrontierExpander expander) {
+        this.graph = graph;
+        this.expander = expander;
+    }
+    
+    public MongoDBTraversal direction(final Direction direction) {
+        this.direction = direction;
+        return this;
+    }
+    
+    public MongoDBTraversal labels(final String... labels) {
+        this.labels = labels;
+        return this;
+    }
+    
+    /**
+     * @param maxDepth number of hops from the start vertices
+     * @return the traversal
+     */
+    public MongoDBTraversal maxDepth(final int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth cannot be negative.");
+        }
+        this.maxDepth = maxDepth;
+        return this;
+    }
+    
+    /**
+     * @param maxFrontier maximum number of vertices kept per level
+     * @return the traversal
+     */
+    public MongoDBTraversal maxFrontier(final int maxFrontier) {
+        if (maxFrontier < 1) {
+            throw new IllegalArgumentException("maxFrontier must be positive.");
+        }
+        this.maxFrontier = maxFrontier;
+        return this;
+    }
+    
+    /**
+     * Runs the traversal.
+     * 
+     * @param startIds
+     * @return the ids reached at each depth, the start ids being depth 0;
+     *         every vertex is in the level it was first reached at
+     */
+    public List<List<Object>> levels(final Object... startIds) {
+        final List<List<Object>> levels = new ArrayList<List<Object>>();
+        traverse(startIds, new ObjIntConsumer<List<Object>>() {
+            @Override
+            public void accept(List<Object> level, int depth) {
+                levels.add(level);
+            }
+        });
+        return levels;
+    }
+    
+    /**
+     * @param startIds
+     * @return the ids of the reached vertices, the start vertices excluded
+     */
+    public List<Object> vertexIds(final Object... startIds) {
+        final List<Object> ids = new ArrayList<Object>();
+        traverse(startIds, new ObjIntConsumer<List<Object>>() {
+            @Override
+            public void accept(List<Object> level, int depth) {
+                if (depth > 0) {
+                    ids.addAll(level);
+                }
+            }
+        });
+        return ids;
+    }
+    
+    /**
+     * Same as {@link #vertexIds(Object...)} for graphs with integral ids,
+     * the ids are copied out of each level as soon as it is expanded, no
+     * boxed id is kept per reached vertex.
+     * 
+     * @param startIds
+     * @return the ids of the reached vertices, the start vertices excluded
+     * @throws IllegalStateException if a reached id is not an integer
+     */
+    public MongoDBLongList longVertexIds(final Object... startIds) {
+        final MongoDBLongList ids = new MongoDBLongList();
+        traverse(startIds, new ObjIntConsumer<List<Object>>() {
+            @Override
+            public void accept(List<Object> level, int depth) {
+                if (depth == 0) {
+                    return;
+                }
+                for (Object id : level) {
+                    if (!MongoDBGraph.isIntegralId(id)) {
+                        throw new IllegalStateException("The id " + id + " is not an integer.");
+                    }
+                    ids.add(((Number) id).longValue());
+                }
+            }
+        });
+        return ids;
+    }
+    
+    /**
+     * Expands the levels one after the other, handing each non empty one to
+     * the sink with its depth before the next one is expanded.
+     * 
+     * @param startIds
+     * @param sink
+     */
+    private void traverse(final Object[] startIds, final ObjIntConsumer<List<Object>> sink) {
+        final MongoDBIdSet visited = new MongoDBIdSet();
+        List<Object> frontier = new ArrayList<Object>(startIds.length);
+        for (Object id : startIds) {
+            if (visited.add(id)) {
+                frontier.add(id);
+            }
+        }
+        
+        sink.accept(frontier, 0);
+        Predicate<Object> firstVisit = new Predicate<Object>() {
+            @Override
+            public boolean test(Object id) {
+                // The expander may call it from several threads
+                synchronized (visited) {
+                    return visited.add(id);
+                }
+            }
+        };
+        
+        for (int depth = 1; depth <= maxDepth && !frontier.isEmpty(); depth++) {
+            frontier = expander.expand(frontier, firstVisit, direction, labels);
+            if (frontier.size() > maxFrontier) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Level " + depth + " has " + frontier.size() + " vertices, it is cut to " + maxFrontier + ".");
+                }
+                frontier = new ArrayList<Object>(frontier.subList(0, maxFrontier));
+            }
+            if (!frontier.isEmpty()) {
+                sink.accept(frontier, depth);
+            }
+        }
+    }
+    
+    /**
+     * @param startIds
+     * @return the reached vertices, the start vertices excluded
+     */
+    public Iterable<Vertex> vertices(final Object... startIds) {
+        List<Object> ids = vertexIds(startIds);
+        if (ids.isEmpty()) {
+            return new ArrayList<Vertex>();
+        }
+        return new MongoDBVertexIterable(graph.getVertexCollection().find(new Document(MongoDBConstants.FIELD_ID, new Document("$in", ids))), graph);
+    }
+}
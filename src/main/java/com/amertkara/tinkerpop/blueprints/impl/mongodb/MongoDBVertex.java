@@ -24,20 +24,23 @@ import java.util.List;
 
 import org.bson.Document;
 
-import com.mongodb.DBRef;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.VertexQuery;
-import com.tinkerpop.blueprints.util.DefaultVertexQuery;
+import com.tinkerpop.blueprints.util.MultiIterable;
 
 /**
  * @author Mert Kara (https://github.com/amertkara)
  * @since 0.1.0
  */
 public class MongoDBVertex extends MongoDBElement implements Vertex {
+    /**
+     * $lookup, $replaceRoot and $objectToArray are available as of 3.4.4.
+     */
+    private static final int[] LOOKUP_SERVER_VERSION = {3, 4, 4};
     
     public MongoDBVertex(final Document vertex, final MongoDBGraph graph) {
         super(vertex, graph);
@@ -45,18 +48,23 @@ public class MongoDBVertex extends MongoDBElement implements Vertex {
 
     @Override
     public Iterable<Edge> getEdges(Direction direction, String... labels) {
+        MongoDBAdjacencyLists adjacencyLists = this.graph.getAdjacencyLists();
+        if (adjacencyLists != null) {
+            Document query = new Document(MongoDBConstants.FIELD_ID, new Document("$in", adjacencyLists.edgeIds(getId(), direction, labels)));
+            return new MongoDBEdgeIterable(this.graph.getEdgeCollection().find(query), graph);
+        }
         if (direction.equals(Direction.OUT)) {
-            Document query = new Document(MongoDBConstants.FIELD_OUTV, new DBRef(MongoDBConstants.DEFAULT_VERTEX_COLLECTION, getId())).append(MongoDBConstants.FIELD_LABEL, new Document("$in", Arrays.asList(labels)));
+            Document query = new Document(MongoDBConstants.FIELD_OUTV, this.graph.endpointFilter(getId())).append(MongoDBConstants.FIELD_LABEL, new Document("$in", Arrays.asList(labels)));
             FindIterable<Document> result = this.graph.getEdgeCollection().find(query);
             return new MongoDBEdgeIterable(result, graph);
         } else if (direction.equals(Direction.IN)) {
-            Document query = new Document(MongoDBConstants.FIELD_INV, new DBRef(MongoDBConstants.DEFAULT_VERTEX_COLLECTION, getId())).append(MongoDBConstants.FIELD_LABEL, new Document("$in", Arrays.asList(labels)));
+            Document query = new Document(MongoDBConstants.FIELD_INV, this.graph.endpointFilter(getId())).append(MongoDBConstants.FIELD_LABEL, new Document("$in", Arrays.asList(labels)));
             FindIterable<Document> result = this.graph.getEdgeCollection().find(query);
             return new MongoDBEdgeIterable(result, graph);
         } else {
             Document query = new Document("$or", Arrays.asList(
-                    new Document(MongoDBConstants.FIELD_OUTV, new DBRef(MongoDBConstants.DEFAULT_VERTEX_COLLECTION, getId())).append(MongoDBConstants.FIELD_LABEL, new Document("$in", Arrays.asList(labels))),
-                    new Document(MongoDBConstants.FIELD_INV, new DBRef(MongoDBConstants.DEFAULT_VERTEX_COLLECTION, getId())).append(MongoDBConstants.FIELD_LABEL, new Document("$in", Arrays.asList(labels)))));
+                    new Document(MongoDBConstants.FIELD_OUTV, this.graph.endpointFilter(getId())).append(MongoDBConstants.FIELD_LABEL, new Document("$in", Arrays.asList(labels))),
+                    new Document(MongoDBConstants.FIELD_INV, this.graph.endpointFilter(getId())).append(MongoDBConstants.FIELD_LABEL, new Document("$in", Arrays.asList(labels)))));
             FindIterable<Document> result = this.graph.getEdgeCollection().find(query);
             return new MongoDBEdgeIterable(result, graph);
         }
@@ -64,55 +72,128 @@ public class MongoDBVertex extends MongoDBElement implements Vertex {
 
     @Override
     public Iterable<Vertex> getVertices(Direction direction, String... labels) {
-        List<Integer> ids = new ArrayList<Integer>();
-        Iterator<Document> it;
-        FindIterable<Document> result;
+        MongoDBAdjacencyLists adjacencyLists = this.graph.getAdjacencyLists();
+        if (adjacencyLists != null) {
+            // Same ends as adjacentEdgesQuery: OUT follows the edges this vertex is the in vertex of
+            Direction edges = direction.equals(Direction.OUT) ? Direction.IN : direction.equals(Direction.IN) ? Direction.OUT : Direction.BOTH;
+            Document query = new Document(MongoDBConstants.FIELD_ID, new Document("$in", adjacencyLists.vertexIds(getId(), edges, labels)));
+            return new MongoDBVertexIterable(this.graph.getVertexCollection().find(query), graph);
+        }
         
-        if (direction.equals(Direction.OUT)) {
-            Document query = new Document(MongoDBConstants.FIELD_INV, new DBRef(MongoDBConstants.DEFAULT_VERTEX_COLLECTION, getId())).append(MongoDBConstants.FIELD_LABEL, new Document("$in", Arrays.asList(labels)));
-            result = this.graph.getEdgeCollection().find(query);
-            it = result.iterator();
-            
-            while (it.hasNext()) {
-                Document document = (Document) it.next();
-                DBRef inV = (DBRef) document.get(MongoDBConstants.FIELD_OUTV);
-                ids.add((Integer) inV.getId());
+        // The server side join can't skip the cached vertices
+        MongoDBElementCache<MongoDBVertex> cache = this.graph.getVertexCache();
+        if (cache == null && this.graph.isServerVersionAtLeast(LOOKUP_SERVER_VERSION)) {
+            return getVerticesByLookup(direction, labels);
+        }
+        
+        // Collect the ids, then fetch the vertices
+        List<Object> ids = new ArrayList<Object>();
+        Iterator<Document> it = this.graph.getEdgeCollection().find(adjacentEdgesQuery(direction, labels)).iterator();
+        
+        while (it.hasNext()) {
+            Document document = (Document) it.next();
+            Object inId = MongoDBGraph.endpointId(document.get(MongoDBConstants.FIELD_INV));
+            Object outId = MongoDBGraph.endpointId(document.get(MongoDBConstants.FIELD_OUTV));
+            if (direction.equals(Direction.OUT)) {
+                ids.add(outId);
+            } else if (direction.equals(Direction.IN)) {
+                ids.add(inId);
+            } else if (!inId.equals(getId())) {
+                ids.add(inId);
+            } else {
+                ids.add(outId);
             }
-        } else if (direction.equals(Direction.IN)) {
-            Document query = new Document(MongoDBConstants.FIELD_OUTV, new DBRef(MongoDBConstants.DEFAULT_VERTEX_COLLECTION, getId())).append(MongoDBConstants.FIELD_LABEL, new Document("$in", Arrays.asList(labels)));
-            result = this.graph.getEdgeCollection().find(query);
-            it = result.iterator();
-            
-            while (it.hasNext()) {
-                Document document = (Document) it.next();
-                DBRef outV = (DBRef) document.get(MongoDBConstants.FIELD_INV);
-                ids.add((Integer) outV.getId());
+        }
+        
+        if (cache == null) {
+            return new MongoDBVertexIterable(this.graph.getVertexCollection().find(new Document(MongoDBConstants.FIELD_ID, new Document("$in", ids))), graph);
+        }
+        
+        // Cached vertices are served as they are, only the others are fetched
+        List<Vertex> cached = new ArrayList<Vertex>();
+        List<Object> missing = new ArrayList<Object>();
+        MongoDBIdSet distinct = new MongoDBIdSet();
+        for (Object id : ids) {
+            if (!distinct.add(id)) {
+                continue;
             }
-        } else {
-            Document query = new Document("$or", Arrays.asList(
-                    new Document(MongoDBConstants.FIELD_OUTV, new DBRef(MongoDBConstants.DEFAULT_VERTEX_COLLECTION, getId())).append(MongoDBConstants.FIELD_LABEL, new Document("$in", Arrays.asList(labels))),
-                    new Document(MongoDBConstants.FIELD_INV, new DBRef(MongoDBConstants.DEFAULT_VERTEX_COLLECTION, getId())).append(MongoDBConstants.FIELD_LABEL, new Document("$in", Arrays.asList(labels)))));
-            result = this.graph.getEdgeCollection().find(query);
-            it = result.iterator();
-            
-            while (it.hasNext()) {
-                Document document = (Document) it.next();
-                DBRef inV = (DBRef) document.get(MongoDBConstants.FIELD_INV);
-                DBRef outV = (DBRef) document.get(MongoDBConstants.FIELD_OUTV);
-                if (inV.getId() != getId()) {
-                    ids.add((Integer) inV.getId());
-                } else {
-                    ids.add((Integer) outV.getId());
-                }
+            MongoDBVertex vertex = cache.get(id);
+            if (vertex != null) {
+                cached.add(vertex);
+            } else {
+                missing.add(id);
             }
         }
+        if (missing.isEmpty()) {
+            return cached;
+        }
+        return new MultiIterable<Vertex>(Arrays.<Iterable<Vertex>>asList(cached,
+                new MongoDBVertexIterable(this.graph.getVertexCollection().find(new Document(MongoDBConstants.FIELD_ID, new Document("$in", missing))), graph)));
+    }
+    
+    /**
+     * Fetches the adjacent vertices with a single aggregation over the edge
+     * collection: the matching edges are reduced to the distinct ids of the
+     * vertices at their other end, which are joined with the vertex
+     * collection by <code>$lookup</code>. In lazy mode the joined vertices
+     * are projected like the ones of a find.
+     * 
+     * @param direction
+     * @param labels
+     * @return the adjacent vertices
+     */
+    private Iterable<Vertex> getVerticesByLookup(Direction direction, String... labels) {
+        Object neighbor;
+        
+        if (direction.equals(Direction.OUT)) {
+            neighbor = this.graph.endpointIdExpression(MongoDBConstants.FIELD_OUTV);
+        } else if (direction.equals(Direction.IN)) {
+            neighbor = this.graph.endpointIdExpression(MongoDBConstants.FIELD_INV);
+        } else {
+            neighbor = new Document("$cond", Arrays.asList(
+                    new Document("$ne", Arrays.asList(this.graph.endpointIdExpression(MongoDBConstants.FIELD_INV), getId())),
+                    this.graph.endpointIdExpression(MongoDBConstants.FIELD_INV),
+                    this.graph.endpointIdExpression(MongoDBConstants.FIELD_OUTV)));
+        }
+        
+        List<Document> pipeline = new ArrayList<Document>(Arrays.asList(
+                new Document("$match", adjacentEdgesQuery(direction, labels)),
+                new Document("$group", new Document(MongoDBConstants.FIELD_MONGO_ID, neighbor)),
+                new Document("$lookup", new Document("from", this.graph.getVertexCollection().getNamespace().getCollectionName())
+                        .append("localField", MongoDBConstants.FIELD_MONGO_ID)
+                        .append("foreignField", MongoDBConstants.FIELD_ID)
+                        .append("as", "vertex")),
+                new Document("$unwind", "$vertex"),
+                new Document("$replaceRoot", new Document("newRoot", "$vertex"))));
+        if (this.graph.isLazyProperties()) {
+            pipeline.add(new Document("$project", this.graph.lazyProjection()));
+        }
         
-        return new MongoDBVertexIterable(this.graph.getVertexCollection().find(new Document(MongoDBConstants.FIELD_ID, new Document("$in", ids))), graph);
+        return new MongoDBVertexIterable(this.graph.getEdgeCollection().aggregate(pipeline), graph);
     }
-
+    
+    /**
+     * The edge filter used by {@link #getVertices(Direction, String...)}.
+     * 
+     * @param direction
+     * @param labels
+     * @return the filter
+     */
+    private Document adjacentEdgesQuery(Direction direction, String... labels) {
+        if (direction.equals(Direction.OUT)) {
+            return new Document(MongoDBConstants.FIELD_INV, this.graph.endpointFilter(getId())).append(MongoDBConstants.FIELD_LABEL, new Document("$in", Arrays.asList(labels)));
+        } else if (direction.equals(Direction.IN)) {
+            return new Document(MongoDBConstants.FIELD_OUTV, this.graph.endpointFilter(getId())).append(MongoDBConstants.FIELD_LABEL, new Document("$in", Arrays.asList(labels)));
+        } else {
+            return new Document("$or", Arrays.asList(
+                    new Document(MongoDBConstants.FIELD_OUTV, this.graph.endpointFilter(getId())).append(MongoDBConstants.FIELD_LABEL, new Document("$in", Arrays.asList(labels))),
+                    new Document(MongoDBConstants.FIELD_INV, this.graph.endpointFilter(getId())).append(MongoDBConstants.FIELD_LABEL, new Document("$in", Arrays.asList(labels)))));
+        }
+    }
+    
     @Override
     public VertexQuery query() {
-        return new DefaultVertexQuery(this);
+        return new MongoDBVertexQuery(this);
     }
 
     @Override
@@ -17,38 +17,27 @@
  */
 package com.amertkara.tinkerpop.blueprints.impl.mongodb;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-
 import org.bson.Document;
 
-import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoIterable;
 import com.tinkerpop.blueprints.Vertex;
 
 /**
  * @author Mert Kara (https://github.com/amertkara)
  * @since 0.1.0
  */
-public class MongoDBVertexIterable implements Iterable<Vertex> {
-    private FindIterable<Document> iterable;
-    private MongoDBGraph graph;
-    private List<Vertex> vertices = new ArrayList<Vertex>();
+public class MongoDBVertexIterable extends MongoDBElementIterable<Vertex> {
+    
+    public MongoDBVertexIterable(final MongoIterable<Document> iterable, final MongoDBGraph graph) {
+        this(iterable, graph, graph.getBatchSize());
+    }
     
-    public MongoDBVertexIterable(final FindIterable<Document> iterable, final MongoDBGraph graph) {
-        this.iterable = iterable;
-        this.graph = graph;
+    public MongoDBVertexIterable(final MongoIterable<Document> iterable, final MongoDBGraph graph, final int batchSize) {
+        super(iterable, graph, batchSize);
     }
     
     @Override
-    public Iterator<Vertex> iterator() {
-        Iterator<Document> it = this.iterable.iterator();
-        
-        while (it.hasNext()) {
-            Document document = (Document) it.next();
-            vertices.add((Vertex)new MongoDBVertex(document, graph));
-        }
-        
-        return vertices.iterator();
+    protected Vertex createElement(final Document document) {
+        return new MongoDBVertex(document, graph);
     }
 }
@@ -0,0 +1,218 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.model.CountOptions;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.VertexQuery;
+import com.tinkerpop.blueprints.util.DefaultVertexQuery;
+import com.tinkerpop.blueprints.util.MultiIterable;
+
+/**
+ * {@link VertexQuery} evaluated by MongoDB. The direction, the labels, the
+ * <code>has</code>/<code>interval</code> conditions and the limit become a
+ * single filter on the edge collection. {@link #count()} is counted by the
+ * server and {@link #vertexIds()} only transfers the endpoints of the edges.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBVertexQuery extends DefaultVertexQuery {
+    private final MongoDBGraph graph;
+    
+    public MongoDBVertexQuery(final MongoDBVertex vertex) {
+        super(vertex);
+        this.graph = vertex.graph;
+    }
+    
+    /* (non-Javadoc)
+     * @see com.tinkerpop.blueprints.util.DefaultVertexQuery#edges()
+     */
+    @Override
+    public Iterable<Edge> edges() {
+        if (this.limit == 0) {
+            return Collections.emptyList();
+        }
+        
+        MongoDBQueryFilter filter = toFilter();
+        FindIterable<Document> result = this.graph.getEdgeCollection().find(filter.toDocument());
+        
+        if (filter.hasResidual()) {
+            return filter.filter(new MongoDBEdgeIterable(result, graph), this.limit);
+        }
+        if (this.limit != Integer.MAX_VALUE) {
+            result.limit(this.limit);
+        }
+        return new MongoDBEdgeIterable(result, graph);
+    }
+    
+    /**
+     * Fetches the vertices at the other end of the matching edges, in the
+     * order of the edges. The ids are looked up with one <code>$in</code>
+     * query per batch, so only a batch of vertices is held at a time.
+     * 
+     * @see com.tinkerpop.blueprints.util.DefaultVertexQuery#vertices()
+     */
+    @Override
+    public Iterable<Vertex> vertices() {
+        List<Object> ids = vertexIds();
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        int batchSize = this.graph.getBatchSize() > 0 ? this.graph.getBatchSize() : MongoDBConstants.DEFAULT_LAZY_PAGE_SIZE;
+        List<Iterable<Vertex>> batches = new ArrayList<Iterable<Vertex>>();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            batches.add(batch(ids.subList(from, Math.min(from + batchSize, ids.size()))));
+        }
+        return new MultiIterable<Vertex>(batches);
+    }
+    
+    /**
+     * @param ids
+     * @return the vertices of the ids, fetched when iterated
+     */
+    private Iterable<Vertex> batch(final List<Object> ids) {
+        return new Iterable<Vertex>() {
+            @Override
+            public Iterator<Vertex> iterator() {
+                // The $in result comes in storage order, put it back in the order of the ids
+                Map<Object, Vertex> vertices = new HashMap<Object, Vertex>(ids.size());
+                for (Vertex vertex : new MongoDBVertexIterable(graph.getVertexCollection().find(new Document(MongoDBConstants.FIELD_ID, new Document("$in", ids))), graph)) {
+                    vertices.put(MongoDBGraph.normalizeId(vertex.getId()), vertex);
+                }
+                List<Vertex> ordered = new ArrayList<Vertex>(ids.size());
+                for (Object id : ids) {
+                    Vertex vertex = vertices.get(MongoDBGraph.normalizeId(id));
+                    if (vertex != null) {
+                        ordered.add(vertex);
+                    }
+                }
+                return ordered.iterator();
+            }
+        };
+    }
+    
+    /* (non-Javadoc)
+     * @see com.tinkerpop.blueprints.util.DefaultVertexQuery#count()
+     */
+    @Override
+    public long count() {
+        MongoDBQueryFilter filter = toFilter();
+        
+        if (filter.hasResidual()) {
+            return super.count();
+        }
+        if (this.limit == 0) {
+            return 0L;
+        }
+        
+        CountOptions options = new CountOptions();
+        if (this.limit != Integer.MAX_VALUE) {
+            options.limit(this.limit);
+        }
+        return this.graph.getEdgeCollection().countDocuments(filter.toDocument(), options);
+    }
+    
+    /**
+     * Only the endpoints of the matching edges are transferred, unless some
+     * conditions have to be evaluated on the client.
+     * 
+     * @see com.tinkerpop.blueprints.util.DefaultVertexQuery#vertexIds()
+     */
+    @Override
+    public List<Object> vertexIds() {
+        List<Object> ids = new ArrayList<Object>();
+        MongoDBQueryFilter filter = toFilter();
+        
+        if (filter.hasResidual()) {
+            for (Edge edge : edges()) {
+                ids.add(otherId(((MongoDBEdge) edge).getOutVertexId(), ((MongoDBEdge) edge).getInVertexId()));
+            }
+            return ids;
+        }
+        if (this.limit == 0) {
+            return ids;
+        }
+        
+        FindIterable<MongoDBEdgeRecord> result = this.graph.getEdgeRecordCollection().find(filter.toDocument())
+                .projection(new Document(MongoDBConstants.FIELD_MONGO_ID, Integer.valueOf(0))
+                        .append(MongoDBConstants.FIELD_OUTV, Integer.valueOf(1))
+                        .append(MongoDBConstants.FIELD_INV, Integer.valueOf(1)));
+        if (this.limit != Integer.MAX_VALUE) {
+            result.limit(this.limit);
+        }
+        
+        Iterator<MongoDBEdgeRecord> it = result.iterator();
+        while (it.hasNext()) {
+            MongoDBEdgeRecord edge = it.next();
+            ids.add(otherId(edge.getOutVertexId(), edge.getInVertexId()));
+        }
+        return ids;
+    }
+    
+    private MongoDBQueryFilter toFilter() {
+        MongoDBQueryFilter filter = new MongoDBQueryFilter(true);
+        Object vertexRef = this.graph.endpointFilter(this.vertex.getId());
+        
+        if (this.direction.equals(Direction.OUT)) {
+            filter.and(new Document(MongoDBConstants.FIELD_OUTV, vertexRef));
+        } else if (this.direction.equals(Direction.IN)) {
+            filter.and(new Document(MongoDBConstants.FIELD_INV, vertexRef));
+        } else {
+            filter.and(new Document("$or", Arrays.asList(
+                    new Document(MongoDBConstants.FIELD_OUTV, vertexRef),
+                    new Document(MongoDBConstants.FIELD_INV, vertexRef))));
+        }
+        if (this.labels.length > 0) {
+            filter.and(new Document(MongoDBConstants.FIELD_LABEL, new Document("$in", Arrays.asList(this.labels))));
+        }
+        for (HasContainer hasContainer : this.hasContainers) {
+            filter.has(hasContainer.key, hasContainer.predicate, hasContainer.value);
+        }
+        
+        return filter;
+    }
+    
+    /**
+     * @param outId the out vertex id of the edge
+     * @param inId the in vertex id of the edge
+     * @return the id of the vertex at the other end of the edge
+     */
+    private Object otherId(final Object outId, final Object inId) {
+        if (this.direction.equals(Direction.OUT)) {
+            return inId;
+        } else if (this.direction.equals(Direction.IN) || !outId.equals(this.vertex.getId())) {
+            return outId;
+        }
+        return inId;
+    }
+}
@@ -0,0 +1,300 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+
+/**
+ * Write-behind buffer for the property updates of a {@link MongoDBGraph}.
+ * <code>setProperty</code> and <code>removeProperty</code> calls are collected
+ * per element; repeated writes to the same key are merged, so each element
+ * costs a single <code>$set</code>/<code>$unset</code> update no matter how
+ * many times its properties were changed. The updates are sent with one
+ * unordered <code>bulkWrite</code> per collection when
+ * <ul>
+ * <li>{@link #flush()} (or {@link MongoDBGraph#flush()}) is called,</li>
+ * <li><code>maxPendingElements</code> elements have pending updates,</li>
+ * <li>the optional flush interval elapses,</li>
+ * <li>the buffer is closed, e.g. on {@link MongoDBGraph#shutdown()}.</li>
+ * </ul>
+ * Until then the updates only exist in memory: they are visible through the
+ * element instances that made them, but not to queries or other clients, and
+ * they are lost if the process dies. Elements are keyed by their normalized
+ * id, see {@link MongoDBGraph#normalizeId(Object)}, so an int32 and an int64
+ * id of the same element share one update.
+ * If a <code>bulkWrite</code> fails, its updates are put back into the buffer,
+ * under the ones made since (a key written again in the meantime keeps its
+ * newer value), and the error is thrown to the caller of {@link #flush()}; the
+ * timer only logs it. The next flush retries them. An unordered write may have
+ * applied part of its updates before failing; they are sent again, which is
+ * harmless since <code>$set</code> and <code>$unset</code> are idempotent.
+ * The vertex updates are written before the edge ones and stay written if the
+ * latter fail.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBWriteBuffer {
+    private static final Logger logger = LoggerFactory.getLogger(MongoDBWriteBuffer.class.getName());
+    public static final int DEFAULT_MAX_PENDING_ELEMENTS = 1000;
+    
+    private final MongoDBGraph graph;
+    private final int maxPendingElements;
+    private final ScheduledExecutorService timer;
+    
+    private Map<Object, Document> vertexUpdates = new LinkedHashMap<Object, Document>();
+    private Map<Object, Document> edgeUpdates = new LinkedHashMap<Object, Document>();
+    
+    public MongoDBWriteBuffer(final MongoDBGraph graph) {
+        this(graph, DEFAULT_MAX_PENDING_ELEMENTS, 0);
+    }
+    
+    /**
+     * @param graph
+     * @param maxPendingElements number of elements with pending updates that triggers a flush
+     * @param flushIntervalMillis period of the background flush, 0 disables it
+     */
+    public MongoDBWriteBuffer(final MongoDBGraph graph, final int maxPendingElements, final long flushIntervalMillis) {
+        if (maxPendingElements < 1) {
+            throw new IllegalArgumentException("maxPendingElements must be positive.");
+        }
+        if (flushIntervalMillis < 0) {
+            throw new IllegalArgumentException("flushIntervalMillis cannot be negative.");
+        }
+        this.graph = graph;
+        this.maxPendingElements = maxPendingElements;
+        
+        if (flushIntervalMillis > 0) {
+            this.timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "mongodb-graph-write-behind");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            this.timer.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        flush();
+                    } catch (RuntimeException re) {
+                        logger.error("Scheduled flush of the pending property updates failed.", re);
+                    }
+                }
+            }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.timer = null;
+        }
+    }
+    
+    /**
+     * Buffers <code>$set</code> of a property, replacing any pending write of the same key.
+     * 
+     * @param element
+     * @param key
+     * @param value
+     */
+    public void setProperty(final MongoDBElement element, final String key, final Object value) {
+        boolean full;
+        synchronized (this) {
+            Document update = pendingUpdate(element);
+            String field = MongoDBGraph.propertyField(key);
+            ((Document) update.get("$unset")).remove(field);
+            ((Document) update.get("$set")).put(field, value);
+            full = pendingCount() >= maxPendingElements;
+        }
+        if (full) {
+            flush();
+        }
+    }
+    
+    /**
+     * Buffers <code>$unset</code> of a property, replacing any pending write of the same key.
+     * 
+     * @param element
+     * @param key
+     */
+    public void removeProperty(final MongoDBElement element, final String key) {
+        boolean full;
+        synchronized (this) {
+            Document update = pendingUpdate(element);
+            String field = MongoDBGraph.propertyField(key);
+            ((Document) update.get("$set")).remove(field);
+            ((Document) update.get("$unset")).put(field, "");
+            full = pendingCount() >= maxPendingElements;
+        }
+        if (full) {
+            flush();
+        }
+    }
+    
+    /**
+     * Drops the pending updates of a removed element.
+     * 
+     * @param element
+     */
+    public synchronized void discard(final MongoDBElement element) {
+        updatesOf(element).remove(MongoDBGraph.normalizeId(element.getId()));
+    }
+    
+    /**
+     * Writes the pending updates.
+     * 
+     * @return the number of elements updated
+     */
+    public int flush() {
+        Map<Object, Document> vertices;
+        Map<Object, Document> edges;
+        synchronized (this) {
+            if (vertexUpdates.isEmpty() && edgeUpdates.isEmpty()) {
+                return 0;
+            }
+            vertices = vertexUpdates;
+            edges = edgeUpdates;
+            vertexUpdates = new LinkedHashMap<Object, Document>();
+            edgeUpdates = new LinkedHashMap<Object, Document>();
+        }
+        
+        try {
+            write(graph.getVertexCollection(), vertices);
+        } catch (RuntimeException re) {
+            synchronized (this) {
+                vertexUpdates = requeue(vertices, vertexUpdates);
+                edgeUpdates = requeue(edges, edgeUpdates);
+            }
+            throw re;
+        }
+        try {
+            write(graph.getEdgeCollection(), edges);
+        } catch (RuntimeException re) {
+            synchronized (this) {
+                edgeUpdates = requeue(edges, edgeUpdates);
+            }
+            throw re;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Flushed the pending property updates of " + vertices.size() + " vertices and " + edges.size() + " edges.");
+        }
+        return vertices.size() + edges.size();
+    }
+    
+    /**
+     * Stops the background flush and writes the pending updates.
+     */
+    public void close() {
+        if (timer != null) {
+            timer.shutdown();
+        }
+        flush();
+    }
+    
+    /**
+     * @return the number of elements with pending updates
+     */
+    public synchronized int pendingCount() {
+        return vertexUpdates.size() + edgeUpdates.size();
+    }
+    
+    public int getMaxPendingElements() {
+        return this.maxPendingElements;
+    }
+    
+    private Map<Object, Document> updatesOf(final MongoDBElement element) {
+        return element instanceof MongoDBVertex ? vertexUpdates : edgeUpdates;
+    }
+    
+    private Document pendingUpdate(final MongoDBElement element) {
+        Map<Object, Document> updates = updatesOf(element);
+        Object id = MongoDBGraph.normalizeId(element.getId());
+        Document update = updates.get(id);
+        if (update == null) {
+            update = new Document("$set", new Document()).append("$unset", new Document());
+            updates.put(id, update);
+        }
+        return update;
+    }
+    
+    /**
+     * Puts the updates of a failed write back in front of the ones buffered
+     * since. A field written again in the meantime keeps its newer write.
+     * 
+     * @param failed
+     * @param pending
+     * @return the merged updates
+     */
+    private static Map<Object, Document> requeue(final Map<Object, Document> failed, final Map<Object, Document> pending) {
+        Map<Object, Document> merged = new LinkedHashMap<Object, Document>(failed);
+        for (Map.Entry<Object, Document> entry : pending.entrySet()) {
+            Document older = merged.get(entry.getKey());
+            if (older == null) {
+                merged.put(entry.getKey(), entry.getValue());
+                continue;
+            }
+            Document set = (Document) older.get("$set");
+            Document unset = (Document) older.get("$unset");
+            for (Map.Entry<String, Object> field : ((Document) entry.getValue().get("$set")).entrySet()) {
+                unset.remove(field.getKey());
+                set.put(field.getKey(), field.getValue());
+            }
+            for (String field : ((Document) entry.getValue().get("$unset")).keySet()) {
+                set.remove(field);
+                unset.put(field, "");
+            }
+        }
+        return merged;
+    }
+    
+    private static void write(final MongoCollection<Document> collection, final Map<Object, Document> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        List<WriteModel<Document>> writes = new ArrayList<WriteModel<Document>>(updates.size());
+        for (Map.Entry<Object, Document> entry : updates.entrySet()) {
+            Document update = new Document();
+            for (String operator : entry.getValue().keySet()) {
+                // Empty operators are rejected by the server
+                if (!((Document) entry.getValue().get(operator)).isEmpty()) {
+                    update.append(operator, entry.getValue().get(operator));
+                }
+            }
+            if (!update.isEmpty()) {
+                writes.add(new UpdateOneModel<Document>(new Document(MongoDBConstants.FIELD_ID, entry.getKey()), update));
+            }
+        }
+        if (!writes.isEmpty()) {
+            collection.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+        }
+    }
+}
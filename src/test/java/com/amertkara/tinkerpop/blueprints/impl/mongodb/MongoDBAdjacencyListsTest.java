@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amertkara.tinkerpop.blueprints.impl.mongodb.embedded.InMemoryMongoDB;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBAdjacencyListsTest extends InMemoryMongoDB {
+    private MongoDBGraph graphDB;
+    private Vertex pilot;
+    private Vertex mechanic;
+    private Vertex[] planes = new Vertex[3];
+    private Edge[] flies = new Edge[3];
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        graphDB = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+        graphDB.enableAdjacencyLists(2);
+        
+        pilot = graphDB.addVertex(null);
+        mechanic = graphDB.addVertex(null);
+        for (int i = 0; i < planes.length; i++) {
+            planes[i] = graphDB.addVertex(null);
+            // The third one spills into a bucket
+            flies[i] = graphDB.addEdge(null, pilot, planes[i], "flies");
+        }
+        graphDB.addEdge(null, mechanic, planes[0], "maintains");
+        graphDB.addEdge(null, pilot, mechanic, "knows");
+    }
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @After
+    public void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBAdjacencyLists#addEdge(java.lang.Object, java.lang.String, java.lang.Object, java.lang.Object)}.
+     */
+    @SuppressWarnings({ "boxing", "unchecked" })
+    @Test
+    public void testAddEdge() {
+        Document stored = this.mongoDB.getCollection(COLLECTION_VERTICES).find(new Document(MongoDBConstants.FIELD_ID, pilot.getId())).first();
+        
+        assertEquals(2, ((List<Document>) stored.get(MongoDBConstants.FIELD_OUT_EDGES)).size());
+        assertEquals(2, stored.get(MongoDBConstants.FIELD_OUT_EDGE_COUNT));
+        assertEquals(Boolean.TRUE, stored.get(MongoDBConstants.FIELD_OUT_EDGES_SPILLED));
+        // flies[2] and knows
+        Document bucket = graphDB.getAdjacencyLists().getBucketCollection().find(new Document(MongoDBConstants.FIELD_VERTEX, pilot.getId())).first();
+        assertEquals(Direction.OUT.name(), bucket.get(MongoDBConstants.FIELD_DIRECTION));
+        assertEquals(2, bucket.get(MongoDBConstants.FIELD_COUNT));
+        
+        stored = this.mongoDB.getCollection(COLLECTION_VERTICES).find(new Document(MongoDBConstants.FIELD_ID, planes[0].getId())).first();
+        assertEquals(2, ((List<Document>) stored.get(MongoDBConstants.FIELD_IN_EDGES)).size());
+        assertNull(stored.get(MongoDBConstants.FIELD_IN_EDGES_SPILLED));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBVertex#getEdges(com.tinkerpop.blueprints.Direction, java.lang.String[])}.
+     */
+    @Test
+    public void testGetEdges() {
+        Vertex stored = graphDB.getVertex(pilot.getId());
+        
+        assertEquals(longIds(flies), longIds(stored.getEdges(Direction.OUT, "flies")));
+        assertEquals(4, longIds(stored.getEdges(Direction.OUT, "flies", "knows")).size());
+        assertEquals(1, longIds(stored.getEdges(Direction.BOTH, "knows")).size());
+        assertTrue(longIds(stored.getEdges(Direction.IN, "flies", "knows")).isEmpty());
+        assertEquals(2, longIds(graphDB.getVertex(planes[0].getId()).getEdges(Direction.IN, "flies", "maintains")).size());
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBVertex#getVertices(com.tinkerpop.blueprints.Direction, java.lang.String[])}.
+     */
+    @Test
+    public void testGetVertices() {
+        // Same ends as the edge collection queries, OUT follows the edges pointing to the vertex
+        assertEquals(longIds(pilot, mechanic), longIds(graphDB.getVertex(planes[0].getId()).getVertices(Direction.OUT, "flies", "maintains")));
+        assertEquals(longIds(planes[0], planes[1], planes[2], mechanic), longIds(graphDB.getVertex(pilot.getId()).getVertices(Direction.IN, "flies", "knows")));
+        assertEquals(longIds(pilot, planes[0]), longIds(graphDB.getVertex(mechanic.getId()).getVertices(Direction.BOTH, "knows", "maintains")));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBAdjacencyLists#removeEdge(java.lang.Object, java.lang.Object, java.lang.Object)}.
+     */
+    @Test
+    public void testRemoveEdge() {
+        // One embedded, one in a bucket
+        graphDB.getEdge(flies[0].getId()).remove();
+        graphDB.getEdge(flies[2].getId()).remove();
+        
+        assertEquals(longIds(flies[1]), longIds(graphDB.getVertex(pilot.getId()).getEdges(Direction.OUT, "flies")));
+        assertTrue(longIds(graphDB.getVertex(planes[2].getId()).getEdges(Direction.IN, "flies")).isEmpty());
+    }
+}
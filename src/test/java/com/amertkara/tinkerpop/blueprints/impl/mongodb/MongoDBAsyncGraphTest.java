@@ -0,0 +1,165 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.bson.Document;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.amertkara.tinkerpop.blueprints.impl.mongodb.embedded.InMemoryMongoDB;
+import com.mongodb.DBRef;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import com.tinkerpop.blueprints.Direction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBAsyncGraphTest extends InMemoryMongoDB {
+    private MongoClient asyncClient;
+    private MongoDBGraph graphDB;
+    private MongoDBAsyncGraph asyncGraph;
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @SuppressWarnings("boxing")
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        graphDB = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+        asyncClient = MongoClients.create("mongodb://" + HOST + ":" + PORT);
+        asyncGraph = new MongoDBAsyncGraph(graphDB, asyncClient);
+        // Insert three vertices and two edges via MongoDB API
+        for (int i = 1; i <= 3; i++) {
+            this.mongoDB.getCollection(COLLECTION_VERTICES).insertOne(new Document(MongoDBConstants.FIELD_ID, i).append(MongoDBConstants.FIELD_PROPERTIES, new Document("name", "v" + i)));
+        }
+        this.mongoDB.getCollection(COLLECTION_EDGES).insertOne(new Document(MongoDBConstants.FIELD_ID, 1)
+        .append(MongoDBConstants.FIELD_LABEL, "knows")
+        .append(MongoDBConstants.FIELD_OUTV, new DBRef(COLLECTION_VERTICES, 1))
+        .append(MongoDBConstants.FIELD_INV, new DBRef(COLLECTION_VERTICES, 2)));
+        this.mongoDB.getCollection(COLLECTION_EDGES).insertOne(new Document(MongoDBConstants.FIELD_ID, 2)
+        .append(MongoDBConstants.FIELD_LABEL, "likes")
+        .append(MongoDBConstants.FIELD_OUTV, new DBRef(COLLECTION_VERTICES, 1))
+        .append(MongoDBConstants.FIELD_INV, new DBRef(COLLECTION_VERTICES, 3)));
+    }
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @After
+    public void tearDown() throws Exception {
+        asyncClient.close();
+        super.tearDown();
+    }
+
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBAsyncGraph#getVertex(java.lang.Object)}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testGetVertex() throws Exception {
+        assertEquals("v1", asyncGraph.getVertex(1).get().getProperty("name"));
+        assertNull(asyncGraph.getVertex(42).get());
+        assertEquals("knows", asyncGraph.getEdge(1).get().getLabel());
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBAsyncGraph#getVertices(java.lang.Object, com.tinkerpop.blueprints.Direction, java.lang.String[])}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testGetVertices() throws Exception {
+        assertEquals(longIds(2, 3), longIds(asyncGraph.getVertices(1, Direction.OUT).get()));
+        assertEquals(longIds(2), longIds(asyncGraph.getVertices(1, Direction.BOTH, "knows").get()));
+        assertEquals(longIds(1), longIds(asyncGraph.getVertices(3, Direction.IN).get()));
+        assertTrue(asyncGraph.getVertices(2, Direction.OUT).get().isEmpty());
+        assertEquals(longIds(1, 2), longIds(asyncGraph.getEdges(1, Direction.OUT).get()));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBAsyncGraph#edges(java.lang.Object, com.tinkerpop.blueprints.Direction, java.lang.String[])}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testEdges() throws Exception {
+        // One edge is requested at a time
+        final CompletableFuture<List<MongoDBEdge>> streamed = new CompletableFuture<List<MongoDBEdge>>();
+        asyncGraph.edges(1, Direction.OUT).subscribe(new Subscriber<MongoDBEdge>() {
+            private final List<MongoDBEdge> edges = new ArrayList<MongoDBEdge>();
+            private Subscription subscription;
+            
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+            
+            @Override
+            public void onNext(MongoDBEdge edge) {
+                edges.add(edge);
+                subscription.request(1);
+            }
+            
+            @Override
+            public void onError(Throwable throwable) {
+                streamed.completeExceptionally(throwable);
+            }
+            
+            @Override
+            public void onComplete() {
+                streamed.complete(edges);
+            }
+        });
+        
+        assertEquals(longIds(1, 2), longIds(streamed.get()));
+        assertTrue(asyncGraph.getEdges(2, Direction.OUT).get().isEmpty());
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBAsyncGraph#addEdge(java.lang.Object, java.lang.Object, java.lang.Object, java.lang.String)}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testMutations() throws Exception {
+        MongoDBVertex vertex = asyncGraph.addVertex(null).get();
+        MongoDBEdge edge = asyncGraph.addEdge(null, vertex.getId(), 1, "knows").get();
+        assertEquals(longIds(1), longIds(asyncGraph.getVertices(vertex.getId(), Direction.OUT, "knows").get()));
+        
+        asyncGraph.setProperty(vertex, "name", "v4").get();
+        assertEquals("v4", vertex.getProperty("name"));
+        assertEquals("v4", graphDB.getVertex(vertex.getId()).getProperty("name"));
+        assertEquals("v4", asyncGraph.removeProperty(vertex, "name").get());
+        assertNull(graphDB.getVertex(vertex.getId()).getProperty("name"));
+        
+        asyncGraph.remove(edge).get();
+        assertNull(graphDB.getEdge(edge.getId()));
+    }
+}
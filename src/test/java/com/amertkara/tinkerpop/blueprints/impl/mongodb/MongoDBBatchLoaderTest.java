@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import org.bson.Document;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amertkara.tinkerpop.blueprints.impl.mongodb.embedded.InMemoryMongoDB;
+import com.mongodb.DBRef;
+import com.tinkerpop.blueprints.Direction;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBBatchLoaderTest extends InMemoryMongoDB {
+    private MongoDBGraph graphDB;
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        graphDB = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+    }
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @After
+    public void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBBatchLoader#flush()}.
+     */
+    @Test
+    public void testFlush() {
+        MongoDBBatchLoader loader = new MongoDBBatchLoader(graphDB, 100, false);
+        loader.addVertex("pilot");
+        loader.addVertex("plane");
+        loader.setVertexProperty("pilot", "name", "Amelia");
+        Object edgeId = loader.addEdge("pilot", "plane", "flies");
+        
+        // Nothing is written before the flush
+        assertEquals(0, this.mongoDB.getCollection(COLLECTION_VERTICES).countDocuments());
+        
+        loader.flush();
+        assertEquals(2, this.mongoDB.getCollection(COLLECTION_VERTICES).countDocuments());
+        assertEquals(1, this.mongoDB.getCollection(COLLECTION_EDGES).countDocuments());
+        
+        Document edge = this.mongoDB.getCollection(COLLECTION_EDGES).find(new Document(MongoDBConstants.FIELD_ID, edgeId)).first();
+        assertEquals(loader.getVertexId("pilot"), ((DBRef) edge.get(MongoDBConstants.FIELD_OUTV)).getId());
+        assertEquals(loader.getVertexId("plane"), ((DBRef) edge.get(MongoDBConstants.FIELD_INV)).getId());
+        
+        MongoDBEdge flies = new MongoDBEdge(edge, graphDB);
+        assertEquals("Amelia", flies.getVertex(Direction.OUT).getProperty("name"));
+        
+        // Properties of flushed elements are written as updates
+        loader.setEdgeProperty(edgeId, "hours", "1200");
+        loader.close();
+        edge = this.mongoDB.getCollection(COLLECTION_EDGES).find(new Document(MongoDBConstants.FIELD_ID, edgeId)).first();
+        assertEquals("1200", ((Document) edge.get(MongoDBConstants.FIELD_PROPERTIES)).get("hours"));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBBatchLoader#addVertex(java.lang.Object)}.
+     */
+    @Test
+    public void testAddVertexFlushesFullBatch() {
+        MongoDBBatchLoader loader = new MongoDBBatchLoader(graphDB, 10, true);
+        for (int i = 0; i < 25; i++) {
+            loader.addVertex(Integer.valueOf(i));
+        }
+        
+        assertEquals(20, this.mongoDB.getCollection(COLLECTION_VERTICES).countDocuments());
+        loader.close();
+        assertEquals(25, this.mongoDB.getCollection(COLLECTION_VERTICES).countDocuments());
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBBatchLoader#addEdge(java.lang.Object, java.lang.Object, java.lang.String)}.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testAddEdgeUnknownVertex() {
+        MongoDBBatchLoader loader = new MongoDBBatchLoader(graphDB);
+        loader.addVertex("pilot");
+        loader.addEdge("pilot", "plane", "flies");
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.bson.Document;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amertkara.tinkerpop.blueprints.impl.mongodb.embedded.InMemoryMongoDB;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBCounterIdAllocatorTest extends InMemoryMongoDB {
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+    }
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @After
+    public void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBCounterIdAllocator#nextId(java.lang.String)}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testNextId() {
+        MongoDBCounterIdAllocator allocator = new MongoDBCounterIdAllocator(this.mongoDB, MongoDBConstants.DEFAULT_COUNTER_COLLECTION, 10);
+        
+        assertEquals(1L, allocator.nextId(COLLECTION_VERTICES));
+        assertEquals(2L, allocator.nextId(COLLECTION_VERTICES));
+        // Collections have their own sequences
+        assertEquals(1L, allocator.nextId(COLLECTION_EDGES));
+        
+        // A second allocator, e.g. in another JVM, reserves the next block
+        MongoDBCounterIdAllocator other = new MongoDBCounterIdAllocator(this.mongoDB, MongoDBConstants.DEFAULT_COUNTER_COLLECTION, 10);
+        assertEquals(11L, other.nextId(COLLECTION_VERTICES));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBCounterIdAllocator#nextId(java.lang.String)}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testNextIdStartsAfterExistingIds() {
+        // Insert vertices via MongoDB API
+        this.mongoDB.getCollection(COLLECTION_VERTICES).insertOne(new Document(MongoDBConstants.FIELD_ID, 1));
+        this.mongoDB.getCollection(COLLECTION_VERTICES).insertOne(new Document(MongoDBConstants.FIELD_ID, 131312));
+        this.mongoDB.getCollection(COLLECTION_VERTICES).insertOne(new Document(MongoDBConstants.FIELD_ID, "abc"));
+        
+        MongoDBCounterIdAllocator allocator = new MongoDBCounterIdAllocator(this.mongoDB);
+        
+        assertEquals(131313L, allocator.nextId(COLLECTION_VERTICES));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBCounterIdAllocator#nextId(java.lang.String)}.
+     */
+    @Test
+    public void testNextIdConcurrently() throws Exception {
+        final MongoDBCounterIdAllocator allocator = new MongoDBCounterIdAllocator(this.mongoDB, MongoDBConstants.DEFAULT_COUNTER_COLLECTION, 7);
+        final Set<Object> ids = new HashSet<Object>();
+        Thread[] threads = new Thread[4];
+        
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 100; j++) {
+                        Object id = allocator.nextId(COLLECTION_EDGES);
+                        synchronized (ids) {
+                            ids.add(id);
+                        }
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        assertEquals(400, ids.size());
+        assertTrue(ids.contains(Long.valueOf(1L)));
+    }
+}
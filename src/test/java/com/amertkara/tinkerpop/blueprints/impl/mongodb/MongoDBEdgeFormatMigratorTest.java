@@ -0,0 +1,159 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.Iterator;
+
+import org.bson.Document;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amertkara.tinkerpop.blueprints.impl.mongodb.embedded.InMemoryMongoDB;
+import com.mongodb.DBRef;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBEdgeFormatMigratorTest extends InMemoryMongoDB {
+    private MongoDBGraph graphDB;
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @SuppressWarnings("boxing")
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        graphDB = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+        // Insert vertices and edges in the DBRef format via MongoDB API
+        for (int i = 1; i <= 3; i++) {
+            this.mongoDB.getCollection(COLLECTION_VERTICES).insertOne(new Document(MongoDBConstants.FIELD_ID, i));
+        }
+        for (int i = 1; i <= 5; i++) {
+            this.mongoDB.getCollection(COLLECTION_EDGES).insertOne(new Document(MongoDBConstants.FIELD_ID, i)
+            .append(MongoDBConstants.FIELD_LABEL, "knows")
+            .append(MongoDBConstants.FIELD_OUTV, new DBRef(COLLECTION_VERTICES, 1))
+            .append(MongoDBConstants.FIELD_INV, new DBRef(COLLECTION_VERTICES, i % 2 + 2)));
+        }
+    }
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @After
+    public void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBEdgeFormatMigrator#migrate()}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testMigrate() {
+        assertEquals(MongoDBEdgeFormat.DBREF, graphDB.getEdgeFormat());
+        
+        assertEquals(5, new MongoDBEdgeFormatMigrator(graphDB, 2).migrate());
+        assertEquals(MongoDBEdgeFormat.RAW_ID, graphDB.getEdgeFormat());
+        
+        Document edge = this.mongoDB.getCollection(COLLECTION_EDGES).find(new Document(MongoDBConstants.FIELD_ID, 1)).first();
+        assertEquals(1, edge.get(MongoDBConstants.FIELD_OUTV));
+        assertEquals(3, edge.get(MongoDBConstants.FIELD_INV));
+        
+        // The format is picked up by a graph opened afterwards
+        MongoDBGraph reopened = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+        assertEquals(MongoDBEdgeFormat.RAW_ID, reopened.getEdgeFormat());
+        assertEquals(0, new MongoDBEdgeFormatMigrator(reopened).migrate());
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBEdgeFormatMigrator#migrate()}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testMigrateForeignDBRef() {
+        this.mongoDB.getCollection(COLLECTION_EDGES).insertOne(new Document(MongoDBConstants.FIELD_ID, 6)
+        .append(MongoDBConstants.FIELD_LABEL, "knows")
+        .append(MongoDBConstants.FIELD_OUTV, new DBRef(COLLECTION_VERTICES, 1))
+        .append(MongoDBConstants.FIELD_INV, new DBRef("otherCollection", 2)));
+        
+        try {
+            new MongoDBEdgeFormatMigrator(graphDB).migrate();
+            fail("An edge refers to another collection.");
+        } catch (IllegalStateException e) {
+            // Nothing is converted
+            assertEquals(MongoDBEdgeFormat.DBREF, graphDB.getEdgeFormat());
+            assertTrue(this.mongoDB.getCollection(COLLECTION_EDGES).find(new Document(MongoDBConstants.FIELD_ID, 1)).first().get(MongoDBConstants.FIELD_OUTV) instanceof Document);
+        }
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraph#getEdgeFormat()}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testRawIdEdges() {
+        new MongoDBEdgeFormatMigrator(graphDB).migrate();
+        
+        Vertex v1 = graphDB.getVertex(1);
+        Vertex v2 = graphDB.getVertex(2);
+        Edge added = graphDB.addEdge(null, v2, v1, "likes");
+        assertEquals(2, this.mongoDB.getCollection(COLLECTION_EDGES).find(new Document(MongoDBConstants.FIELD_ID, added.getId())).first().get(MongoDBConstants.FIELD_OUTV));
+        
+        Iterator<Edge> edges = v2.getEdges(Direction.OUT, "likes").iterator();
+        assertEquals(added.getId(), edges.next().getId());
+        assertEquals(v1.getId(), ((MongoDBEdge) added).getinV().getId());
+        assertEquals(5, v1.query().direction(Direction.OUT).labels("knows").count());
+        assertTrue(v1.getVertices(Direction.OUT, "likes").iterator().hasNext());
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraph#endpointId(java.lang.Object)}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testDBRefEdgeReadBack() {
+        Vertex v1 = graphDB.getVertex(1);
+        Vertex v2 = graphDB.getVertex(2);
+        Object id = graphDB.addEdge(null, v1, v2, "likes").getId();
+        
+        // Read back from the server, where the DBRefs come as {$ref, $id} documents
+        MongoDBEdge edge = (MongoDBEdge) graphDB.getEdge(id);
+        assertEquals(1L, ((Number) edge.getOutVertexId()).longValue());
+        assertEquals(2L, ((Number) edge.getInVertexId()).longValue());
+        assertEquals(v2.getId(), edge.getinV().getId());
+        assertEquals(3, ((Number) ((MongoDBEdge) graphDB.getEdge(5)).getInVertexId()).intValue());
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraph#setEdgeFormat(com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBEdgeFormat)}.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testSetEdgeFormat() {
+        graphDB.setEdgeFormat(MongoDBEdgeFormat.RAW_ID);
+    }
+}
@@ -17,6 +17,8 @@
  */
 package com.amertkara.tinkerpop.blueprints.impl.mongodb;
 
+import java.util.Iterator;
+
 import org.bson.Document;
 import org.junit.After;
 import org.junit.Before;
@@ -27,9 +29,11 @@ import com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBEdge;
 import com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBEdgeIterable;
 import com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraph;
 import com.amertkara.tinkerpop.blueprints.impl.mongodb.embedded.InMemoryMongoDB;
+import com.mongodb.DBRef;
 import com.mongodb.client.FindIterable;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 /**
  * @author Mert Kara (https://github.com/amertkara)
@@ -69,4 +73,66 @@ public class MongoDBEdgeIterableTest extends InMemoryMongoDB {
         
         assertEquals("1", ((MongoDBEdge)edges.iterator().next()).getLabel());
     }
+
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBEdgeIterable#iterator()}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testIteratorIsRepeatable() {
+        // Insert some documents via MongoDB API
+        for (int i = 1; i <= 5; i++) {
+            this.mongoDB.getCollection(COLLECTION_EDGES).insertOne(new Document(MongoDBConstants.FIELD_ID, i));
+        }
+        
+        FindIterable<Document> result = this.graphDB.getEdgeCollection().find(new Document());
+        MongoDBEdgeIterable elements = new MongoDBEdgeIterable(result, this.graphDB, 2);
+        
+        assertEquals(5, count(elements.iterator()));
+        assertEquals(5, count(elements.iterator()));
+        
+        // A half consumed cursor is released by close
+        elements.iterator().next();
+        elements.close();
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBEdgeIterable#pageFilled(java.util.List)}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testEndpointPrefetch() {
+        // Vertex i knows i + 1
+        for (int i = 1; i <= 4; i++) {
+            this.mongoDB.getCollection(COLLECTION_VERTICES).insertOne(new Document(MongoDBConstants.FIELD_ID, i));
+        }
+        for (int i = 1; i <= 3; i++) {
+            this.mongoDB.getCollection(COLLECTION_EDGES).insertOne(new Document(MongoDBConstants.FIELD_ID, i).append(MongoDBConstants.FIELD_LABEL, "knows")
+                    .append(MongoDBConstants.FIELD_OUTV, new DBRef(COLLECTION_VERTICES, i))
+                    .append(MongoDBConstants.FIELD_INV, new DBRef(COLLECTION_VERTICES, i + 1)));
+        }
+        this.graphDB.setEndpointPrefetch(true);
+        
+        FindIterable<Document> result = this.graphDB.getEdgeCollection().find(new Document()).sort(new Document(MongoDBConstants.FIELD_ID, 1));
+        Iterator<?> edges = new MongoDBEdgeIterable(result, this.graphDB, 2).iterator();
+        MongoDBEdge first = (MongoDBEdge) edges.next();
+        assertEquals(2, first.getinV().getId());
+        
+        // The endpoints of the first page have been fetched with the first call
+        this.mongoDB.getCollection(COLLECTION_VERTICES).deleteMany(new Document());
+        assertEquals(1, first.getOutV().getId());
+        MongoDBEdge second = (MongoDBEdge) edges.next();
+        assertEquals(2, second.getOutV().getId());
+        assertEquals(3, second.getinV().getId());
+        assertNull(((MongoDBEdge) edges.next()).getinV());
+    }
+    
+    private int count(Iterator<?> it) {
+        int count = 0;
+        while (it.hasNext()) {
+            it.next();
+            count++;
+        }
+        return count;
+    }
 }
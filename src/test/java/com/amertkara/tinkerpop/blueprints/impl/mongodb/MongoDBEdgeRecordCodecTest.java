@@ -0,0 +1,92 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.Arrays;
+
+import org.bson.BsonDocumentReader;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.junit.Test;
+
+import com.mongodb.DBRef;
+import com.mongodb.MongoClient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBEdgeRecordCodecTest {
+    private static final CodecRegistry REGISTRY = MongoClient.getDefaultCodecRegistry();
+    private static final MongoDBEdgeRecordCodec CODEC = new MongoDBEdgeRecordCodec(REGISTRY);
+
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBEdgeRecordCodec#decode(org.bson.BsonReader, org.bson.codecs.DecoderContext)}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testDecode() {
+        MongoDBEdgeRecord edge = decode(new Document(MongoDBConstants.FIELD_MONGO_ID, 7)
+                .append(MongoDBConstants.FIELD_ID, 3)
+                .append(MongoDBConstants.FIELD_LABEL, "knows")
+                .append(MongoDBConstants.FIELD_OUTV, new DBRef("vertexCollection", 1))
+                .append(MongoDBConstants.FIELD_INV, 2L)
+                .append(MongoDBConstants.FIELD_PROPERTIES, new Document("since", "2016")
+                        .append("tags", Arrays.asList("a", "b"))));
+        
+        assertEquals(3, edge.getId());
+        assertSame("knows", edge.getLabel());
+        assertEquals(1, edge.getOutVertexId());
+        assertEquals(2L, edge.getInVertexId());
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBEdgeRecordCodec#decode(org.bson.BsonReader, org.bson.codecs.DecoderContext)}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testDecodeProjected() {
+        MongoDBEdgeRecord edge = decode(new Document(MongoDBConstants.FIELD_OUTV, 1L)
+                .append(MongoDBConstants.FIELD_INV, new DBRef("vertexCollection", "b")));
+        
+        assertNull(edge.getId());
+        assertNull(edge.getLabel());
+        assertEquals(1L, edge.getOutVertexId());
+        assertEquals("b", edge.getInVertexId());
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBEdgeRecordCodec#encode(org.bson.BsonWriter, com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBEdgeRecord, org.bson.codecs.EncoderContext)}.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testEncode() {
+        CODEC.encode(null, new MongoDBEdgeRecord(1L, null, null, null), null);
+    }
+    
+    private static MongoDBEdgeRecord decode(final Document document) {
+        RawBsonDocument raw = new RawBsonDocument(document, new DocumentCodec(REGISTRY));
+        return CODEC.decode(new BsonDocumentReader(raw), DecoderContext.builder().build());
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import org.bson.Document;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amertkara.tinkerpop.blueprints.impl.mongodb.embedded.InMemoryMongoDB;
+import com.mongodb.DBRef;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Vertex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBElementCacheTest extends InMemoryMongoDB {
+    private MongoDBGraph graphDB;
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @SuppressWarnings("boxing")
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        graphDB = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+        graphDB.enableElementCache(2);
+        // Insert vertices and an edge via MongoDB API
+        for (int i = 1; i <= 3; i++) {
+            this.mongoDB.getCollection(COLLECTION_VERTICES).insertOne(new Document(MongoDBConstants.FIELD_ID, i).append(MongoDBConstants.FIELD_PROPERTIES, new Document("name", "v" + i)));
+        }
+        this.mongoDB.getCollection(COLLECTION_EDGES).insertOne(new Document(MongoDBConstants.FIELD_ID, 1)
+        .append(MongoDBConstants.FIELD_LABEL, "knows")
+        .append(MongoDBConstants.FIELD_OUTV, new DBRef(COLLECTION_VERTICES, 1))
+        .append(MongoDBConstants.FIELD_INV, new DBRef(COLLECTION_VERTICES, 2)));
+    }
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @After
+    public void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBElementCache#get(java.lang.Object)}.
+     */
+    @Test
+    public void testGet() {
+        MongoDBVertex vertex = (MongoDBVertex) graphDB.getVertex(1);
+        
+        assertSame(vertex, graphDB.getVertex(1));
+        // The edge endpoints are served from the cache too
+        assertSame(vertex, ((MongoDBEdge) graphDB.getEdge(1)).getOutV());
+        assertEquals(3, graphDB.getVertexCache().getHitCount() + graphDB.getVertexCache().getMissCount());
+        assertEquals(2, graphDB.getVertexCache().getHitCount());
+        
+        // The least recently used vertex is evicted
+        graphDB.getVertex(2);
+        graphDB.getVertex(3);
+        assertEquals(2, graphDB.getVertexCache().size());
+        assertNotSame(vertex, graphDB.getVertex(1));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBElementCache#put(com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBElement)}.
+     */
+    @Test
+    public void testWriteThrough() {
+        graphDB.getVertex(1);
+        
+        // Another copy of the vertex is written
+        MongoDBVertex copy = new MongoDBVertex(this.mongoDB.getCollection(COLLECTION_VERTICES).find(new Document(MongoDBConstants.FIELD_ID, 1)).first(), graphDB);
+        copy.setProperty("name", "pilot");
+        // The stale cached copy is evicted, the written one is not cached
+        assertNull(graphDB.getVertexCache().get(1));
+        assertEquals("pilot", graphDB.getVertex(1).getProperty("name"));
+        assertNotSame(copy, graphDB.getVertex(1));
+        
+        // The cached instance itself stays cached when written
+        MongoDBVertex cached = (MongoDBVertex) graphDB.getVertex(1);
+        cached.setProperty("name", "captain");
+        assertSame(cached, graphDB.getVertexCache().get(1));
+        
+        copy.remove();
+        assertNull(graphDB.getVertexCache().get(1));
+        assertNull(graphDB.getVertex(1));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBVertex#getVertices(com.tinkerpop.blueprints.Direction, java.lang.String[])}.
+     */
+    @Test
+    public void testGetVertices() {
+        MongoDBVertex in = (MongoDBVertex) graphDB.getVertex(2);
+        
+        // Vertex 1 is fetched, then served from the cache
+        Vertex out = in.getVertices(Direction.OUT, "knows").iterator().next();
+        assertEquals("v1", out.getProperty("name"));
+        MongoDBVertex cached = (MongoDBVertex) graphDB.getVertex(1);
+        assertSame(cached, in.getVertices(Direction.OUT, "knows").iterator().next());
+    }
+}
@@ -120,6 +120,9 @@ public class MongoDBElementTest extends InMemoryMongoDB {
         Document modified = cursor.iterator().next();
         assertEquals("val3", ((Document) modified.get(MongoDBConstants.FIELD_PROPERTIES)).get("key1"));
         assertEquals("val3", edge.getProperty("key1"));
+        // The other properties are kept
+        assertEquals("val2", ((Document) modified.get(MongoDBConstants.FIELD_PROPERTIES)).get("key2"));
+        assertEquals("val2", edge.getProperty("key2"));
     }
     
     /**
@@ -142,6 +145,7 @@ public class MongoDBElementTest extends InMemoryMongoDB {
         
         assertNull(edge.getProperty("key1"));
         assertNull(modified.get(new Document(MongoDBConstants.FIELD_PROPERTIES, new Document("key1", ""))));
+        assertEquals("val2", ((Document) modified.get(MongoDBConstants.FIELD_PROPERTIES)).get("key2"));
     }
     
     /**
@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amertkara.tinkerpop.blueprints.impl.mongodb.embedded.InMemoryMongoDB;
+import com.tinkerpop.blueprints.Direction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBFrontierExpanderTest extends InMemoryMongoDB {
+    private MongoDBGraph graphDB;
+    private MongoDBFrontierExpander expander;
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        graphDB = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+        // Two ids per query, so the levels are split into parallel batches
+        expander = new MongoDBFrontierExpander(graphDB, 2, 2);
+        
+        insertBinaryTree();
+    }
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @After
+    public void tearDown() throws Exception {
+        expander.shutdown();
+        super.tearDown();
+    }
+
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBFrontierExpander#neighborhood(java.lang.Object, int, com.tinkerpop.blueprints.Direction, java.lang.String[])}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testNeighborhood() {
+        assertEquals(longIds(2, 3), longIds(expander.neighborhood(1, 1, Direction.OUT, "knows")));
+        assertEquals(longIds(2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15), longIds(expander.neighborhood(1, 3, Direction.OUT, "knows")));
+        // The cycle through likes doesn't report the start vertex
+        assertEquals(14, expander.neighborhood(1, 10, Direction.OUT).size());
+        assertEquals(longIds(3, 1), longIds(expander.neighborhood(7, 2, Direction.IN)));
+        assertEquals(longIds(8, 9, 2, 5, 1), longIds(expander.neighborhood(4, 2, Direction.BOTH, "knows")));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBFrontierExpander#expand(java.util.Collection, java.util.Set, com.tinkerpop.blueprints.Direction, java.lang.String[])}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testExpand() {
+        Set<Object> visited = ConcurrentHashMap.newKeySet();
+        visited.add(5L);
+        
+        List<Object> reached = expander.expand(Arrays.<Object>asList(2, 3, 4, 5, 6), visited, Direction.OUT, "knows");
+        assertEquals(longIds(4, 6, 7, 8, 9, 10, 11, 12, 13), longIds(reached));
+        // Each vertex is reported once
+        assertEquals(reached.size(), longIds(reached).size());
+        assertTrue(visited.contains(13L));
+    }
+}
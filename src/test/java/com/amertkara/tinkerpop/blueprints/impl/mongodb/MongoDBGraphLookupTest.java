@@ -0,0 +1,100 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amertkara.tinkerpop.blueprints.impl.mongodb.embedded.InMemoryMongoDB;
+import com.tinkerpop.blueprints.Direction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBGraphLookupTest extends InMemoryMongoDB {
+    private MongoDBGraph graphDB;
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        graphDB = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+        Assume.assumeTrue(graphDB.isServerVersionAtLeast(new int[] {3, 4}));
+        
+        insertBinaryTree();
+    }
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @After
+    public void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraphLookup#reachable(java.lang.Object, com.tinkerpop.blueprints.Direction, int, java.lang.String[])}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testReachable() {
+        Map<Object, Integer> hops = graphDB.reachable(1, Direction.OUT, 2, "knows");
+        assertEquals(6, hops.size());
+        assertEquals(Integer.valueOf(1), hops.get(2));
+        assertEquals(Integer.valueOf(2), hops.get(7));
+        
+        // The start vertex is left out, although 15 likes 1
+        hops = graphDB.reachable(1, Direction.OUT, 5);
+        assertEquals(14, hops.size());
+        assertEquals(Integer.valueOf(3), hops.get(15));
+        
+        hops = graphDB.reachable(14, Direction.IN, 3);
+        assertEquals(3, hops.size());
+        assertEquals(Integer.valueOf(3), hops.get(1));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraphLookup#shortestHops(java.lang.Object, java.lang.Object, com.tinkerpop.blueprints.Direction, int, java.lang.String[])}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testShortestHops() {
+        assertEquals(Integer.valueOf(3), graphDB.shortestHops(1L, 12L, Direction.OUT, 5));
+        assertEquals(Integer.valueOf(4), graphDB.shortestHops(15, 7, Direction.OUT, 5));
+        assertNull(graphDB.shortestHops(15, 7, Direction.OUT, 5, "knows"));
+        assertNull(graphDB.shortestHops(1, 12, Direction.OUT, 2));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraphLookup#reachable(java.lang.Object, com.tinkerpop.blueprints.Direction, int, java.lang.String[])}.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testReachableBoth() {
+        graphDB.reachable(1, Direction.BOTH, 2);
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.Arrays;
+
+import org.bson.Document;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amertkara.tinkerpop.blueprints.impl.mongodb.embedded.InMemoryMongoDB;
+import com.mongodb.DBRef;
+import com.tinkerpop.blueprints.Compare;
+import com.tinkerpop.blueprints.Contains;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Predicate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBGraphQueryTest extends InMemoryMongoDB {
+    private MongoDBGraph graphDB;
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @SuppressWarnings("boxing")
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        graphDB = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+        // Insert vertices via MongoDB API
+        this.mongoDB.getCollection(COLLECTION_VERTICES).insertOne(new Document(MongoDBConstants.FIELD_ID, 1).append(MongoDBConstants.FIELD_PROPERTIES, new Document("name", "pilot").append("age", 35)));
+        this.mongoDB.getCollection(COLLECTION_VERTICES).insertOne(new Document(MongoDBConstants.FIELD_ID, 2).append(MongoDBConstants.FIELD_PROPERTIES, new Document("name", "plane")));
+        this.mongoDB.getCollection(COLLECTION_VERTICES).insertOne(new Document(MongoDBConstants.FIELD_ID, 3).append(MongoDBConstants.FIELD_PROPERTIES, new Document("name", "mechanic").append("age", 52)));
+        // Insert edges via MongoDB API
+        this.mongoDB.getCollection(COLLECTION_EDGES).insertOne(new Document(MongoDBConstants.FIELD_ID, 1)
+        .append(MongoDBConstants.FIELD_LABEL, "flies")
+        .append(MongoDBConstants.FIELD_OUTV, new DBRef(COLLECTION_VERTICES, 1))
+        .append(MongoDBConstants.FIELD_INV, new DBRef(COLLECTION_VERTICES, 2)));
+        this.mongoDB.getCollection(COLLECTION_EDGES).insertOne(new Document(MongoDBConstants.FIELD_ID, 2)
+        .append(MongoDBConstants.FIELD_LABEL, "maintains")
+        .append(MongoDBConstants.FIELD_OUTV, new DBRef(COLLECTION_VERTICES, 3))
+        .append(MongoDBConstants.FIELD_INV, new DBRef(COLLECTION_VERTICES, 2)));
+    }
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @After
+    public void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraphQuery#vertices()}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testVertices() {
+        assertEquals(sortedIds(2), sortedIds(graphDB.query().has("name", "plane").vertices()));
+        assertEquals(sortedIds(2), sortedIds(graphDB.query().hasNot("age").vertices()));
+        assertEquals(sortedIds(1, 3), sortedIds(graphDB.query().has("age").vertices()));
+        assertEquals(sortedIds(3), sortedIds(graphDB.query().has("age", Compare.GREATER_THAN, 40).vertices()));
+        assertEquals(sortedIds(1), sortedIds(graphDB.query().interval("age", 30, 52).vertices()));
+        assertEquals(sortedIds(1, 2), sortedIds(graphDB.query().has("name", Contains.IN, Arrays.asList("pilot", "plane")).vertices()));
+        assertEquals(1, sortedIds(graphDB.query().has("age").limit(1).vertices()).size());
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraphQuery#edges()}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testEdges() {
+        assertEquals(sortedIds(2), sortedIds(graphDB.query().has("label", "maintains").edges()));
+        assertEquals(sortedIds(1, 2), sortedIds(graphDB.query().edges()));
+        
+        // Labels are loaded even if no property is
+        Edge edge = ((MongoDBGraphQuery) graphDB.query()).keys().has("id", 1).edges().iterator().next();
+        assertEquals("flies", edge.getLabel());
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraphQuery#keys(java.lang.String[])}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testKeys() {
+        MongoDBGraphQuery query = (MongoDBGraphQuery) graphDB.query().has("name", "pilot");
+        Element pilot = query.keys("age").vertices().iterator().next();
+        
+        assertEquals(Integer.valueOf(35), pilot.getProperty("age"));
+        assertNull(pilot.getProperty("name"));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraphQuery#vertices()}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testVerticesClientSidePredicate() {
+        Predicate startsWith = new Predicate() {
+            @Override
+            public boolean evaluate(Object first, Object second) {
+                return first != null && ((String) first).startsWith((String) second);
+            }
+        };
+        
+        assertEquals(sortedIds(1, 2), sortedIds(graphDB.query().has("name", startsWith, "p").vertices()));
+        assertEquals(sortedIds(1), sortedIds(graphDB.query().has("name", startsWith, "p").limit(1).vertices()));
+    }
+}
@@ -18,6 +18,8 @@
 package com.amertkara.tinkerpop.blueprints.impl.mongodb;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 
@@ -34,8 +36,14 @@ import com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBVertex;
 import com.amertkara.tinkerpop.blueprints.impl.mongodb.embedded.InMemoryMongoDB;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.ListIndexesIterable;
+import com.mongodb.client.MongoCollection;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Parameter;
+import com.tinkerpop.blueprints.Vertex;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -86,8 +94,13 @@ public class MongoDBGraphTest extends InMemoryMongoDB {
         while (it.hasNext()) {
             Document document = (Document) it.next();
             indexNames.add((String)document.get("name"));
+            if ("id_1".equals(document.get("name"))) {
+                assertEquals(Boolean.TRUE, document.get("unique"));
+            }
         }
-        assertTrue(indexNames.contains("id_1_unique_"));
+        assertTrue(indexNames.contains("id_1"));
+        assertTrue(indexNames.contains("outv_1_label_1"));
+        assertTrue(indexNames.contains("inv_1_label_1"));
         
         indexes = graphDB.getRawGraph().getCollection(COLLECTION_VERTICES).listIndexes();
         it = indexes.iterator();
@@ -96,8 +109,11 @@ public class MongoDBGraphTest extends InMemoryMongoDB {
         while (it.hasNext()) {
             Document document = (Document) it.next();
             indexNames.add((String)document.get("name"));
+            if ("id_1".equals(document.get("name"))) {
+                assertEquals(Boolean.TRUE, document.get("unique"));
+            }
         }
-        assertTrue(indexNames.contains("id_1_unique_"));
+        assertTrue(indexNames.contains("id_1"));
     }
 
     /**
@@ -117,10 +133,13 @@ public class MongoDBGraphTest extends InMemoryMongoDB {
         
         // Initiate the graph database
         MongoDBGraph graphDB = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
-        graphDB.addVertex(id);
+        MongoDBVertex vertex = (MongoDBVertex) graphDB.addVertex(id);
         
         FindIterable<Document> result = graphDB.getRawGraph().getCollection(COLLECTION_VERTICES).find(new Document(MongoDBConstants.FIELD_ID, id));
         assertTrue(result.iterator().hasNext());
+        // The returned vertex is built from the inserted document
+        assertEquals(id, vertex.getId());
+        assertEquals(result.first().get("_id"), vertex.rawElement.get("_id"));
     }
 
     /**
@@ -161,9 +180,18 @@ public class MongoDBGraphTest extends InMemoryMongoDB {
     /**
      * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraph#getVertices(java.lang.String, java.lang.Object)}.
      */
-   	@Ignore
+    @SuppressWarnings("boxing")
+    @Test
     public void testGetVerticesStringObject() {
-        fail("Not yet implemented");
+        // Initiate the graph database
+        MongoDBGraph graphDB = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+        // Insert vertices via MongoDB API
+        this.mongoDB.getCollection(COLLECTION_VERTICES).insertOne(new Document(MongoDBConstants.FIELD_ID, 1).append(MongoDBConstants.FIELD_PROPERTIES, new Document("name", "pilot")));
+        this.mongoDB.getCollection(COLLECTION_VERTICES).insertOne(new Document(MongoDBConstants.FIELD_ID, 2).append(MongoDBConstants.FIELD_PROPERTIES, new Document("name", "plane")));
+        
+        Iterator<Vertex> it = graphDB.getVertices("name", "plane").iterator();
+        assertEquals(2, it.next().getId());
+        assertFalse(it.hasNext());
     }
 
     /**
@@ -204,9 +232,19 @@ public class MongoDBGraphTest extends InMemoryMongoDB {
     /**
      * Test method for {@link com.amertkara.pgss.tinkerpop.bluep,rints.impl.mongodb.MongoDBGraph#getEdge(java.lang.Object)}.
      */
-    @Ignore
+    @SuppressWarnings("boxing")
+    @Test
     public void testGet() {
-        fail("Not yet implemented");
+        // Initiate the graph database
+        MongoDBGraph graphDB = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+        
+        // No edge exists
+        assertNull(graphDB.getEdge(1));
+        
+        // Insert an edge via MongoDB API
+        this.mongoDB.getCollection(COLLECTION_EDGES).insertOne(new Document(MongoDBConstants.FIELD_ID, 1).append(MongoDBConstants.FIELD_LABEL, "knows"));
+        
+        assertEquals("knows", graphDB.getEdge(1).getLabel());
     }
 
     /**
@@ -228,17 +266,30 @@ public class MongoDBGraphTest extends InMemoryMongoDB {
     /**
      * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraph#getEdges(java.lang.String, java.lang.Object)}.
      */
-    @Ignore
+    @SuppressWarnings("boxing")
+    @Test
     public void testGetEdgesStringObject() {
-        fail("Not yet implemented");
+        // Initiate the graph database
+        MongoDBGraph graphDB = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+        // Insert edges via MongoDB API
+        this.mongoDB.getCollection(COLLECTION_EDGES).insertOne(new Document(MongoDBConstants.FIELD_ID, 1).append(MongoDBConstants.FIELD_PROPERTIES, new Document("since", 2010)));
+        this.mongoDB.getCollection(COLLECTION_EDGES).insertOne(new Document(MongoDBConstants.FIELD_ID, 2).append(MongoDBConstants.FIELD_PROPERTIES, new Document("since", 2012)));
+        graphDB.createKeyIndex("since", Edge.class);
+        
+        Iterator<Edge> it = graphDB.getEdges("since", 2010).iterator();
+        assertEquals(1, it.next().getId());
+        assertFalse(it.hasNext());
     }
 
     /**
      * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraph#query()}.
      */
-    @Ignore
+    @Test
     public void testQuery() {
-        fail("Not yet implemented");
+        // Initiate the graph database
+        MongoDBGraph graphDB = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+        
+        assertTrue(graphDB.query() instanceof MongoDBGraphQuery);
     }
 
     /**
@@ -252,25 +303,56 @@ public class MongoDBGraphTest extends InMemoryMongoDB {
     /**
      * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraph#dropKeyIndex(java.lang.String, java.lang.Class)}.
      */
-    @Ignore
+    @Test
     public void testDropKeyIndex() {
-        fail("Not yet implemented");
+        // Initiate the graph database
+        MongoDBGraph graphDB = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+        graphDB.createKeyIndex("name", Vertex.class);
+        graphDB.dropKeyIndex("name", Vertex.class);
+        
+        assertTrue(graphDB.getIndexedKeys(Vertex.class).isEmpty());
+        assertFalse(indexNames(graphDB.getVertexCollection()).contains("properties.name_1"));
     }
 
     /**
      * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraph#createKeyIndex(java.lang.String, java.lang.Class, com.tinkerpop.blueprints.Parameter[])}.
      */
-    @Ignore
+    @Test
     public void testCreateKeyIndex() {
-        fail("Not yet implemented");
+        // Initiate the graph database
+        MongoDBGraph graphDB = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+        graphDB.createKeyIndex("name", Vertex.class, new Parameter<String, Boolean>(MongoDBConstants.INDEX_PARAMETER_BACKGROUND, Boolean.FALSE));
+        
+        assertTrue(indexNames(graphDB.getVertexCollection()).contains("properties.name_1"));
+        assertFalse(indexNames(graphDB.getEdgeCollection()).contains("properties.name_1"));
+    }
+
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraph#createKeyIndex(java.lang.String, java.lang.Class, com.tinkerpop.blueprints.Parameter[])}.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateKeyIndexInvalidParameter() {
+        // Initiate the graph database
+        MongoDBGraph graphDB = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+        graphDB.createKeyIndex("name", Vertex.class, new Parameter<String, String>(MongoDBConstants.INDEX_PARAMETER_UNIQUE, "yes"));
     }
 
     /**
      * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraph#getIndexedKeys(java.lang.Class)}.
      */
-    @Ignore
+    @Test
     public void testGetIndexedKeys() {
-        fail("Not yet implemented");
+        // Initiate the graph database
+        MongoDBGraph graphDB = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+        assertTrue(graphDB.getIndexedKeys(Vertex.class).isEmpty());
+        
+        graphDB.createKeyIndex("name", Vertex.class);
+        graphDB.createKeyIndex("weight", Edge.class);
+        
+        assertEquals(new HashSet<String>(Arrays.asList("name")), graphDB.getIndexedKeys(Vertex.class));
+        // The indexed keys are persisted
+        graphDB = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+        assertEquals(new HashSet<String>(Arrays.asList("weight")), graphDB.getIndexedKeys(Edge.class));
     }
 
     /**
@@ -315,5 +397,106 @@ public class MongoDBGraphTest extends InMemoryMongoDB {
         
         assertEquals(new Integer(131313), graphDB.getCollectionNextID(COLLECTION_VERTICES));
     }
-
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraph#forTenant(com.mongodb.MongoClient, java.lang.String, java.lang.String)}.
+     */
+    @Test
+    public void testForTenant() {
+        MongoDBGraph acme = MongoDBGraph.forTenant(this.mongoClient, DB_NAME, "acme");
+        MongoDBGraph initech = MongoDBGraph.forTenant(this.mongoClient, DB_NAME, "initech");
+        assertEquals("acme.vertexCollection", acme.getVertexCollection().getNamespace().getCollectionName());
+        assertEquals("acme.edgeCollection", acme.getEdgeCollection().getNamespace().getCollectionName());
+        
+        Vertex pilot = acme.addVertex(null);
+        Vertex plane = acme.addVertex(null);
+        Edge flies = acme.addEdge(null, pilot, plane, "flies");
+        initech.addEdge(null, initech.addVertex(null), initech.addVertex(null), "flies");
+        
+        // Adjacency queries use the vertex collection of the tenant
+        Iterator<Edge> edges = pilot.getEdges(Direction.OUT, "flies").iterator();
+        assertEquals(flies.getId(), edges.next().getId());
+        assertFalse(edges.hasNext());
+        assertEquals(pilot.getId(), plane.getVertices(Direction.OUT, "flies").iterator().next().getId());
+        assertEquals(1, pilot.query().direction(Direction.OUT).count());
+        assertEquals(1, this.mongoDB.getCollection("initech.edgeCollection").countDocuments());
+        
+        // The shared client stays open
+        acme.shutdown();
+        assertNotNull(initech.getVertex(1));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraph#setLazyProperties(boolean)}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testLazyProperties() {
+        MongoDBGraph graphDB = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+        graphDB.setLazyProperties(true);
+        graphDB.setBatchSize(2);
+        for (int i = 1; i <= 3; i++) {
+            this.mongoDB.getCollection(COLLECTION_VERTICES).insertOne(new Document(MongoDBConstants.FIELD_ID, i).append(MongoDBConstants.FIELD_PROPERTIES, new Document("name", "v" + i).append("kind", "plane")));
+        }
+        
+        MongoDBVertex vertex = (MongoDBVertex) graphDB.getVertex(1);
+        assertFalse(vertex.isPropertiesLoaded());
+        assertEquals("v1", vertex.getProperty("name"));
+        assertTrue(vertex.isPropertiesLoaded());
+        
+        // The first page loads its properties at once, the second one is left alone
+        List<MongoDBVertex> vertices = new ArrayList<MongoDBVertex>();
+        for (Vertex v : graphDB.getVertices("kind", "plane")) {
+            vertices.add((MongoDBVertex) v);
+        }
+        assertEquals(3, vertices.size());
+        assertEquals(new HashSet<String>(Arrays.asList("name", "kind")), vertices.get(0).getPropertyKeys());
+        assertTrue(vertices.get(1).isPropertiesLoaded());
+        assertFalse(vertices.get(2).isPropertiesLoaded());
+        
+        // Writes keep the properties which haven't been fetched
+        vertices.get(2).setProperty("seats", 4);
+        assertEquals("plane", vertices.get(2).getProperty("kind"));
+        assertEquals(3, ((Document) this.mongoDB.getCollection(COLLECTION_VERTICES).find(new Document(MongoDBConstants.FIELD_ID, 3)).first().get(MongoDBConstants.FIELD_PROPERTIES)).size());
+        
+        graphDB.setLazyProperties(false);
+        assertTrue(((MongoDBVertex) graphDB.getVertices("kind", "plane").iterator().next()).isPropertiesLoaded());
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraph#setLazyDecoding(boolean)}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testLazyDecoding() {
+        MongoDBGraph graphDB = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+        graphDB.setLazyDecoding(true);
+        this.mongoDB.getCollection(COLLECTION_VERTICES).insertOne(new Document(MongoDBConstants.FIELD_ID, 1).append(MongoDBConstants.FIELD_PROPERTIES, new Document("name", "pilot").append("age", 30)));
+        
+        MongoDBVertex vertex = (MongoDBVertex) graphDB.getVertex(1);
+        assertTrue(vertex.rawElement instanceof MongoDBLazyDocument);
+        assertEquals("pilot", vertex.getProperty("name"));
+        assertTrue(((MongoDBLazyDocument) vertex.rawElement).isLazy());
+        
+        vertex.setProperty("seats", 4);
+        assertEquals(new HashSet<String>(Arrays.asList("name", "age", "seats")), vertex.getPropertyKeys());
+        assertEquals(3, ((Document) this.mongoDB.getCollection(COLLECTION_VERTICES).find(new Document(MongoDBConstants.FIELD_ID, 1)).first().get(MongoDBConstants.FIELD_PROPERTIES)).size());
+        
+        // Writes are encoded as usual
+        Edge edge = graphDB.addEdge(null, vertex, graphDB.addVertex(null), "flies");
+        assertEquals(vertex.getId(), ((MongoDBEdge) graphDB.getEdge(edge.getId())).getOutVertexId());
+        
+        graphDB.setLazyDecoding(false);
+        assertFalse(((MongoDBVertex) graphDB.getVertex(1)).rawElement instanceof MongoDBLazyDocument);
+    }
+    
+    private List<String> indexNames(MongoCollection<Document> collection) {
+        List<String> indexNames = new ArrayList<String>();
+        Iterator<Document> it = collection.listIndexes().iterator();
+        
+        while (it.hasNext()) {
+            indexNames.add((String) it.next().get("name"));
+        }
+        return indexNames;
+    }
 }
@@ -0,0 +1,55 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBIdSetTest {
+
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBIdSet#add(java.lang.Object)}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testAdd() {
+        MongoDBIdSet set = new MongoDBIdSet();
+        assertTrue(set.isEmpty());
+        assertTrue(set.add(1L));
+        // int32 and int64 ids are the same id
+        assertFalse(set.add(1));
+        assertTrue(set.add("1"));
+        ObjectId objectId = new ObjectId();
+        assertTrue(set.add(objectId));
+        assertFalse(set.add(objectId));
+        
+        assertEquals(3, set.size());
+        assertTrue(set.contains((short) 1));
+        assertTrue(set.contains("1"));
+        assertFalse(set.contains(2));
+        assertFalse(new MongoDBIdSet(4).contains("1"));
+    }
+}
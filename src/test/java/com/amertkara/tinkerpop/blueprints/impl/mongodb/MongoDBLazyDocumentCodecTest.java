@@ -0,0 +1,188 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.bson.BsonDocumentReader;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.junit.Test;
+
+import com.mongodb.DBRef;
+import com.mongodb.MongoClient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBLazyDocumentCodecTest {
+    private static final CodecRegistry REGISTRY = MongoClient.getDefaultCodecRegistry();
+
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBLazyDocumentCodec#decode(org.bson.BsonReader, org.bson.codecs.DecoderContext)}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testDecode() {
+        MongoDBLazyDocument document = decode(new Document(MongoDBConstants.FIELD_ID, 1L)
+                .append(MongoDBConstants.FIELD_LABEL, "knows")
+                .append(MongoDBConstants.FIELD_OUTV, new DBRef("vertexCollection", 2))
+                .append(MongoDBConstants.FIELD_PROPERTIES, new Document("name", "pilot").append("tags", Arrays.asList("a", "b"))));
+        
+        assertEquals(1L, document.get(MongoDBConstants.FIELD_ID));
+        assertEquals("knows", document.getString(MongoDBConstants.FIELD_LABEL));
+        assertEquals(2, MongoDBGraph.endpointId(document.get(MongoDBConstants.FIELD_OUTV)));
+        assertTrue(document.containsKey(MongoDBConstants.FIELD_PROPERTIES));
+        assertFalse(document.containsKey("missing"));
+        assertNull(document.get("missing"));
+        assertEquals(4, document.size());
+        
+        Document properties = (Document) document.get(MongoDBConstants.FIELD_PROPERTIES);
+        assertSame(properties, document.get(MongoDBConstants.FIELD_PROPERTIES));
+        assertEquals(Arrays.asList("a", "b"), properties.get("tags"));
+        assertTrue(document.isLazy());
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBLazyDocument#put(java.lang.String, java.lang.Object)}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testWrite() {
+        MongoDBLazyDocument document = decode(new Document(MongoDBConstants.FIELD_ID, 1L)
+                .append(MongoDBConstants.FIELD_PROPERTIES, new Document("name", "pilot")));
+        
+        // The properties handed out before the document is decoded stay attached to it
+        Document properties = (Document) document.get(MongoDBConstants.FIELD_PROPERTIES);
+        document.put(MongoDBConstants.FIELD_LABEL, "person");
+        assertFalse(document.isLazy());
+        properties.put("age", 30);
+        
+        assertEquals(new HashSet<String>(Arrays.asList(MongoDBConstants.FIELD_ID, MongoDBConstants.FIELD_PROPERTIES, MongoDBConstants.FIELD_LABEL)), document.keySet());
+        assertEquals(new Document("name", "pilot").append("age", 30), new Document(properties));
+        assertSame(properties, document.get(MongoDBConstants.FIELD_PROPERTIES));
+        assertEquals(1L, document.get(MongoDBConstants.FIELD_ID));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBLazyDocument#get(java.lang.Object, java.lang.Class)}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testTypedGet() {
+        MongoDBLazyDocument document = decode(new Document(MongoDBConstants.FIELD_LABEL, "knows")
+                .append(MongoDBConstants.FIELD_PROPERTIES, new Document("tags", Arrays.asList("a", "b")).append("address", new Document("city", "Montreal"))));
+        
+        assertEquals("knows", document.get(MongoDBConstants.FIELD_LABEL, String.class));
+        assertEquals("none", document.get("missing", "none"));
+        assertEquals("knows", document.get(MongoDBConstants.FIELD_LABEL, "none"));
+        Document properties = document.get(MongoDBConstants.FIELD_PROPERTIES, Document.class);
+        assertEquals(Arrays.asList("a", "b"), properties.getList("tags", String.class));
+        assertEquals("Montreal", document.getEmbedded(Arrays.asList(MongoDBConstants.FIELD_PROPERTIES, "address", "city"), String.class));
+        assertTrue(document.isLazy());
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBLazyDocument#equals(java.lang.Object)}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testEquals() {
+        Document plain = new Document(MongoDBConstants.FIELD_ID, 1L).append(MongoDBConstants.FIELD_LABEL, "knows");
+        MongoDBLazyDocument document = decode(plain);
+        
+        assertEquals(decode(plain), document);
+        assertEquals(decode(plain).hashCode(), document.hashCode());
+        assertFalse(document.equals(plain));
+        assertFalse(plain.equals(document));
+        assertFalse(document.equals(decode(new Document(MongoDBConstants.FIELD_ID, 2L))));
+        assertEquals(plain, new Document(document));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBLazyDocument#get(java.lang.Object)}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testConcurrentReads() throws Exception {
+        Document plain = new Document(MongoDBConstants.FIELD_ID, 1L).append(MongoDBConstants.FIELD_PROPERTIES, new Document("name", "pilot"));
+        for (int i = 0; i < 50; i++) {
+            plain.append("key" + i, i);
+        }
+        
+        for (int run = 0; run < 20; run++) {
+            final MongoDBLazyDocument document = decode(plain);
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            List<Future<Object>> properties = new ArrayList<Future<Object>>();
+            for (int i = 0; i < 8; i++) {
+                final boolean materialize = i % 2 == 0;
+                properties.add(executor.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() {
+                        if (materialize) {
+                            document.keySet();
+                        }
+                        for (int j = 0; j < 50; j++) {
+                            assertEquals(j, document.get("key" + j));
+                        }
+                        return document.get(MongoDBConstants.FIELD_PROPERTIES);
+                    }
+                }));
+            }
+            executor.shutdown();
+            
+            // Every thread gets every field, and the same properties instance
+            for (Future<Object> future : properties) {
+                assertSame(document.get(MongoDBConstants.FIELD_PROPERTIES), future.get());
+            }
+            assertEquals(52, document.keySet().size());
+        }
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBLazyDocumentCodec#generateIdIfAbsentFromDocument(org.bson.Document)}.
+     */
+    @Test
+    public void testGenerateId() {
+        MongoDBLazyDocumentCodec codec = new MongoDBLazyDocumentCodec(REGISTRY);
+        Document document = codec.generateIdIfAbsentFromDocument(new Document(MongoDBConstants.FIELD_ID, "a"));
+        assertTrue(codec.documentHasId(document));
+    }
+    
+    private static MongoDBLazyDocument decode(final Document document) {
+        RawBsonDocument raw = new RawBsonDocument(document, new DocumentCodec(REGISTRY));
+        return (MongoDBLazyDocument) new MongoDBLazyDocumentCodec(REGISTRY).decode(new BsonDocumentReader(raw), DecoderContext.builder().build());
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBLongSetTest {
+
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBLongSet#add(long)}.
+     */
+    @Test
+    public void testAdd() {
+        MongoDBLongSet set = new MongoDBLongSet(2);
+        for (long i = -1000; i < 1000; i++) {
+            assertTrue(set.add(i));
+        }
+        assertFalse(set.add(0));
+        assertFalse(set.add(999));
+        assertFalse(set.add(-1000));
+        
+        assertEquals(2000, set.size());
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(Long.valueOf(500).longValue()));
+        assertFalse(set.contains(1000));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBLongSet#toArray()}.
+     */
+    @Test
+    public void testToArray() {
+        MongoDBLongSet set = new MongoDBLongSet();
+        set.add(Long.MAX_VALUE);
+        set.add(0);
+        set.add(42);
+        
+        long[] values = set.toArray();
+        Arrays.sort(values);
+        assertArrayEquals(new long[] {0, 42, Long.MAX_VALUE}, values);
+        
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(42));
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amertkara.tinkerpop.blueprints.impl.mongodb.embedded.InMemoryMongoDB;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBObjectIdAllocatorTest extends InMemoryMongoDB {
+    private MongoDBGraph graphDB;
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        graphDB = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+        graphDB.setIdAllocator(new MongoDBObjectIdAllocator());
+    }
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @After
+    public void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBObjectIdAllocator#nextId(java.lang.String)}.
+     */
+    @Test
+    public void testNextId() {
+        Object first = graphDB.getIdAllocator().nextId(COLLECTION_VERTICES);
+        assertTrue(first instanceof ObjectId);
+        assertFalse(first.equals(graphDB.getIdAllocator().nextId(COLLECTION_VERTICES)));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraph#getVertex(java.lang.Object)}.
+     */
+    @Test
+    public void testGetAllocatedElements() {
+        Vertex out = graphDB.addVertex(null);
+        Vertex in = graphDB.addVertex(null);
+        Edge edge = graphDB.addEdge(null, out, in, "knows");
+        
+        // The allocated ids are looked up as they are
+        Vertex vertex = graphDB.getVertex(out.getId());
+        assertNotNull(vertex);
+        assertEquals(out.getId(), vertex.getId());
+        assertEquals(edge.getId(), graphDB.getEdge(edge.getId()).getId());
+        assertEquals(in.getId(), graphDB.getEdge(edge.getId()).getVertex(Direction.IN).getId());
+    }
+}
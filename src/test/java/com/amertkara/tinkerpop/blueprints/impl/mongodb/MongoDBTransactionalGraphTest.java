@@ -0,0 +1,187 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import org.bson.Document;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amertkara.tinkerpop.blueprints.impl.mongodb.embedded.InMemoryMongoDB;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The tests that commit need a replica set, e.g. a single node started with
+ * <code>mongod --replSet rs0</code> and <code>rs.initiate()</code>, and are
+ * skipped otherwise. Queueing and rollback never reach the server and are
+ * tested on any deployment.
+ * 
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBTransactionalGraphTest extends InMemoryMongoDB {
+    private MongoDBTransactionalGraph graphDB;
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        graphDB = new MongoDBTransactionalGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+    }
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @After
+    public void tearDown() throws Exception {
+        if (graphDB != null) {
+            graphDB.rollback();
+        }
+        super.tearDown();
+    }
+
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBTransactionalGraph#commit()}.
+     */
+    @Test
+    public void testCommit() {
+        assumeTransactions();
+        Vertex v1 = graphDB.addVertex(null);
+        Vertex v2 = graphDB.addVertex(null);
+        v1.setProperty("name", "v1");
+        Edge edge = graphDB.addEdge(null, v1, v2, "knows");
+        edge.setProperty("since", "2016");
+        
+        // Nothing is written before the commit
+        assertEquals(0, this.mongoDB.getCollection(COLLECTION_VERTICES).countDocuments());
+        assertEquals(0, this.mongoDB.getCollection(COLLECTION_EDGES).countDocuments());
+        
+        graphDB.commit();
+        assertEquals(2, this.mongoDB.getCollection(COLLECTION_VERTICES).countDocuments());
+        assertEquals("v1", graphDB.getVertex(v1.getId()).getProperty("name"));
+        assertEquals("2016", graphDB.getEdge(edge.getId()).getProperty("since"));
+        
+        // Changes of existing elements
+        Vertex stored = graphDB.getVertex(v1.getId());
+        stored.setProperty("name", "renamed");
+        stored.setProperty("age", "30");
+        stored.removeProperty("age");
+        graphDB.getEdge(edge.getId()).remove();
+        assertEquals("v1", graphDB.getVertex(v1.getId()).getProperty("name"));
+        
+        graphDB.commit();
+        Vertex reloaded = graphDB.getVertex(v1.getId());
+        assertEquals("renamed", reloaded.getProperty("name"));
+        assertFalse(reloaded.getPropertyKeys().contains("age"));
+        assertNull(graphDB.getEdge(edge.getId()));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBTransactionalGraph#rollback()}.
+     */
+    @Test
+    public void testRollback() {
+        assumeTransactions();
+        Vertex vertex = graphDB.addVertex(null);
+        graphDB.commit();
+        
+        graphDB.getVertex(vertex.getId()).setProperty("name", "v1");
+        graphDB.addVertex(null);
+        graphDB.rollback();
+        
+        assertEquals(1, this.mongoDB.getCollection(COLLECTION_VERTICES).countDocuments());
+        assertNull(graphDB.getVertex(vertex.getId()).getProperty("name"));
+        
+        // Nothing left to commit
+        graphDB.commit();
+        assertEquals(1, this.mongoDB.getCollection(COLLECTION_VERTICES).countDocuments());
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBTransactionalGraph#cacheWritten(com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBElement)}.
+     */
+    @Test
+    public void testCacheWritten() {
+        assumeTransactions();
+        graphDB.enableElementCache(16);
+        Vertex vertex = graphDB.addVertex(null);
+        graphDB.commit();
+        
+        graphDB.getVertex(vertex.getId()).setProperty("name", "v1");
+        assertNull(graphDB.getVertexCache().get(vertex.getId()));
+        
+        graphDB.commit();
+        assertNull(graphDB.getVertexCache().get(vertex.getId()));
+        assertEquals("v1", graphDB.getVertex(vertex.getId()).getProperty("name"));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBTransactionalGraph#rollback()}.
+     */
+    @Test
+    public void testQueueAndRollback() {
+        this.mongoDB.getCollection(COLLECTION_VERTICES).insertOne(new Document(MongoDBConstants.FIELD_ID, Long.valueOf(1000)));
+        graphDB.enableElementCache(16);
+        Vertex stored = graphDB.getVertex(Long.valueOf(1000));
+        assertNull(graphDB.getVertex(stored.getId()).getProperty("name"));
+        
+        Vertex v1 = graphDB.addVertex(null);
+        Vertex v2 = graphDB.addVertex(null);
+        graphDB.addEdge(null, v1, v2, "knows");
+        graphDB.getVertex(stored.getId()).setProperty("name", "v1");
+        graphDB.getVertex(stored.getId()).remove();
+        
+        // Queued in memory only, the changed element is out of the cache
+        assertEquals(1, this.mongoDB.getCollection(COLLECTION_VERTICES).countDocuments());
+        assertEquals(0, this.mongoDB.getCollection(COLLECTION_EDGES).countDocuments());
+        assertNull(graphDB.getVertexCache().get(stored.getId()));
+        
+        // Nothing is left to commit after a rollback, no session is needed
+        graphDB.rollback();
+        graphDB.commit();
+        assertEquals(1, this.mongoDB.getCollection(COLLECTION_VERTICES).countDocuments());
+        assertEquals(0, this.mongoDB.getCollection(COLLECTION_EDGES).countDocuments());
+        assertNull(graphDB.getVertex(stored.getId()).getProperty("name"));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBTransactionalGraph#getFeatures()}.
+     */
+    @Test
+    public void testGetFeatures() {
+        assertTrue(graphDB.getFeatures().supportsTransactions.booleanValue());
+    }
+    
+    /**
+     * Skips the calling test unless the server supports transactions.
+     */
+    private void assumeTransactions() {
+        Document isMaster = this.mongoDB.runCommand(new Document("isMaster", Integer.valueOf(1)));
+        Assume.assumeTrue(isMaster.containsKey("setName"));
+        Assume.assumeTrue(graphDB.isServerVersionAtLeast(4, 0));
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amertkara.tinkerpop.blueprints.impl.mongodb.embedded.InMemoryMongoDB;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Vertex;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBTraversalTest extends InMemoryMongoDB {
+    private MongoDBGraph graphDB;
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        graphDB = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+        
+        insertBinaryTree();
+    }
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @After
+    public void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBTraversal#levels(java.lang.Object[])}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testLevels() {
+        List<List<Object>> levels = new MongoDBTraversal(graphDB).labels("knows").levels(1L);
+        
+        assertEquals(4, levels.size());
+        assertEquals(longIds(1), longIds(levels.get(0)));
+        assertEquals(longIds(2, 3), longIds(levels.get(1)));
+        assertEquals(longIds(4, 5, 6, 7), longIds(levels.get(2)));
+        assertEquals(8, levels.get(3).size());
+        
+        // 15 likes 1, which has already been visited
+        assertEquals(4, new MongoDBTraversal(graphDB).levels(1L).size());
+        assertEquals(longIds(15), longIds(new MongoDBTraversal(graphDB).direction(Direction.IN).labels("likes").levels(1).get(1)));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBTraversal#maxDepth(int)}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testLimits() {
+        assertEquals(longIds(2, 3, 4, 5, 6, 7), longIds(new MongoDBTraversal(graphDB).maxDepth(2).vertexIds(1)));
+        assertEquals(longIds(3, 1, 6, 15), longIds(new MongoDBTraversal(graphDB).direction(Direction.BOTH).maxDepth(2).vertexIds(7, 14)));
+        
+        // Only 2 of the 4 vertices of the second level are expanded
+        List<List<Object>> levels = new MongoDBTraversal(graphDB).labels("knows").maxFrontier(2).levels(1);
+        assertEquals(2, levels.get(2).size());
+        assertEquals(4, levels.get(3).size());
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBTraversal#vertices(java.lang.Object[])}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testVertices() {
+        MongoDBFrontierExpander expander = new MongoDBFrontierExpander(graphDB, 2, 2);
+        Set<Long> ids = new HashSet<Long>();
+        for (Vertex vertex : new MongoDBTraversal(graphDB, expander).maxDepth(3).vertices(1)) {
+            ids.add(((Number) vertex.getId()).longValue());
+        }
+        expander.shutdown();
+        
+        assertEquals(14, ids.size());
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBTraversal#longVertexIds(java.lang.Object[])}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testLongVertexIds() {
+        MongoDBLongList ids = new MongoDBTraversal(graphDB).maxDepth(1).longVertexIds(1);
+        assertEquals(2, ids.size());
+        assertEquals(longIds(2, 3), longIds(ids.get(0), ids.get(1)));
+        
+        MongoDBVertex vertex = (MongoDBVertex) graphDB.getVertex("15.0");
+        assertEquals(15L, vertex.getLongId());
+    }
+}
@@ -17,6 +17,8 @@
  */
 package com.amertkara.tinkerpop.blueprints.impl.mongodb;
 
+import java.util.Iterator;
+
 import org.bson.Document;
 import org.junit.After;
 import org.junit.Before;
@@ -69,4 +71,35 @@ public class MongoDBVertexIterableTest extends InMemoryMongoDB {
         
         assertEquals(1, ((MongoDBVertex)edges.iterator().next()).getId());
     }
+
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBVertexIterable#iterator()}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testIteratorIsRepeatable() {
+        // Insert some documents via MongoDB API
+        for (int i = 1; i <= 5; i++) {
+            this.mongoDB.getCollection(COLLECTION_VERTICES).insertOne(new Document(MongoDBConstants.FIELD_ID, i));
+        }
+        
+        FindIterable<Document> result = this.graphDB.getVertexCollection().find(new Document());
+        MongoDBVertexIterable elements = new MongoDBVertexIterable(result, this.graphDB, 2);
+        
+        assertEquals(5, count(elements.iterator()));
+        assertEquals(5, count(elements.iterator()));
+        
+        // A half consumed cursor is released by close
+        elements.iterator().next();
+        elements.close();
+    }
+    
+    private int count(Iterator<?> it) {
+        int count = 0;
+        while (it.hasNext()) {
+            it.next();
+            count++;
+        }
+        return count;
+    }
 }
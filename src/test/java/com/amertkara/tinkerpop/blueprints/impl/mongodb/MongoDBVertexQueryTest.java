@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import java.util.Arrays;
+
+import org.bson.Document;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amertkara.tinkerpop.blueprints.impl.mongodb.embedded.InMemoryMongoDB;
+import com.mongodb.DBRef;
+import com.tinkerpop.blueprints.Compare;
+import com.tinkerpop.blueprints.Direction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBVertexQueryTest extends InMemoryMongoDB {
+    private MongoDBGraph graphDB;
+    private MongoDBVertex pilot;
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @SuppressWarnings("boxing")
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        graphDB = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+        // Insert vertices via MongoDB API
+        this.mongoDB.getCollection(COLLECTION_VERTICES).insertOne(new Document(MongoDBConstants.FIELD_ID, 1).append(MongoDBConstants.FIELD_PROPERTIES, new Document("name", "pilot")));
+        this.mongoDB.getCollection(COLLECTION_VERTICES).insertOne(new Document(MongoDBConstants.FIELD_ID, 2).append(MongoDBConstants.FIELD_PROPERTIES, new Document("name", "plane")));
+        this.mongoDB.getCollection(COLLECTION_VERTICES).insertOne(new Document(MongoDBConstants.FIELD_ID, 3).append(MongoDBConstants.FIELD_PROPERTIES, new Document("name", "mechanic")));
+        // Insert edges via MongoDB API
+        this.mongoDB.getCollection(COLLECTION_EDGES).insertOne(new Document(MongoDBConstants.FIELD_ID, 1)
+        .append(MongoDBConstants.FIELD_LABEL, "flies")
+        .append(MongoDBConstants.FIELD_OUTV, new DBRef(COLLECTION_VERTICES, 1))
+        .append(MongoDBConstants.FIELD_INV, new DBRef(COLLECTION_VERTICES, 2))
+        .append(MongoDBConstants.FIELD_PROPERTIES, new Document("hours", 1200)));
+        this.mongoDB.getCollection(COLLECTION_EDGES).insertOne(new Document(MongoDBConstants.FIELD_ID, 2)
+        .append(MongoDBConstants.FIELD_LABEL, "knows")
+        .append(MongoDBConstants.FIELD_OUTV, new DBRef(COLLECTION_VERTICES, 1))
+        .append(MongoDBConstants.FIELD_INV, new DBRef(COLLECTION_VERTICES, 3)));
+        this.mongoDB.getCollection(COLLECTION_EDGES).insertOne(new Document(MongoDBConstants.FIELD_ID, 3)
+        .append(MongoDBConstants.FIELD_LABEL, "knows")
+        .append(MongoDBConstants.FIELD_OUTV, new DBRef(COLLECTION_VERTICES, 3))
+        .append(MongoDBConstants.FIELD_INV, new DBRef(COLLECTION_VERTICES, 1)));
+        
+        pilot = new MongoDBVertex(this.mongoDB.getCollection(COLLECTION_VERTICES).find(new Document(MongoDBConstants.FIELD_ID, 1)).first(), graphDB);
+    }
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @After
+    public void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBVertexQuery#edges()}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testEdges() {
+        assertTrue(pilot.query() instanceof MongoDBVertexQuery);
+        assertEquals(sortedIds(1, 2, 3), sortedIds(pilot.query().edges()));
+        assertEquals(sortedIds(1, 2), sortedIds(pilot.query().direction(Direction.OUT).edges()));
+        assertEquals(sortedIds(2, 3), sortedIds(pilot.query().labels("knows").edges()));
+        assertEquals(sortedIds(1), sortedIds(pilot.query().has("hours", Compare.GREATER_THAN, 1000).edges()));
+        assertEquals(sortedIds(1), sortedIds(pilot.query().limit(1).edges()));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBVertexQuery#vertices()}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testVertices() {
+        assertEquals(sortedIds(2, 3), sortedIds(pilot.query().direction(Direction.OUT).vertices()));
+        assertEquals(sortedIds(3), sortedIds(pilot.query().direction(Direction.IN).vertices()));
+        // The mechanic is reached by two edges
+        assertEquals(sortedIds(3, 3), sortedIds(pilot.query().labels("knows").vertices()));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBVertexQuery#count()}.
+     */
+    @Test
+    public void testCount() {
+        assertEquals(3, pilot.query().count());
+        assertEquals(1, pilot.query().direction(Direction.IN).count());
+        assertEquals(2, pilot.query().limit(2).count());
+        assertEquals(0, pilot.query().labels("maintains").count());
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBVertexQuery#vertexIds()}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testVertexIds() {
+        assertEquals(sortedIds(2, 3, 3), sortedIds(pilot.query().vertexIds()));
+        assertEquals(Arrays.asList(2), pilot.query().direction(Direction.OUT).labels("flies").vertexIds());
+    }
+}
@@ -69,7 +69,7 @@ public class MongoDBVertexTest extends InMemoryMongoDB {
         this.mongoDB.getCollection(COLLECTION_VERTICES).insertOne(new Document(MongoDBConstants.FIELD_ID, 2).append(MongoDBConstants.FIELD_PROPERTIES, new Document("name", "plane")));
         this.mongoDB.getCollection(COLLECTION_VERTICES).insertOne(new Document(MongoDBConstants.FIELD_ID, 3).append(MongoDBConstants.FIELD_PROPERTIES, new Document("name", "mechanic")));
         
-        // Insert two edges via MongoDB API
+        // Insert three edges via MongoDB API
         // Link those vertices with edges flies, maintains, knows relations
         this.mongoDB.getCollection(COLLECTION_EDGES).insertOne(new Document(MongoDBConstants.FIELD_ID, 1)
         .append(MongoDBConstants.FIELD_LABEL, "flies")
@@ -81,7 +81,7 @@ public class MongoDBVertexTest extends InMemoryMongoDB {
         .append(MongoDBConstants.FIELD_OUTV, new DBRef(COLLECTION_VERTICES, 3))
         .append(MongoDBConstants.FIELD_INV, new DBRef(COLLECTION_VERTICES, 2)));
         
-        this.mongoDB.getCollection(COLLECTION_EDGES).insertOne(new Document(MongoDBConstants.FIELD_ID, 2)
+        this.mongoDB.getCollection(COLLECTION_EDGES).insertOne(new Document(MongoDBConstants.FIELD_ID, 3)
         .append(MongoDBConstants.FIELD_LABEL, "knows")
         .append(MongoDBConstants.FIELD_OUTV, new DBRef(COLLECTION_VERTICES, 1))
         .append(MongoDBConstants.FIELD_INV, new DBRef(COLLECTION_VERTICES, 3)));
@@ -260,6 +260,32 @@ public class MongoDBVertexTest extends InMemoryMongoDB {
         assertFalse(tower.getVertices(Direction.IN, new String[]{"flies", "maintains", "knows"}).iterator().hasNext());
     }
     
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBVertex#getVertices(com.tinkerpop.blueprints.Direction, java.lang.String[])}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testGetVerticesLazyProperties() throws Exception {
+        graphDB.setLazyProperties(true);
+        cursor = this.mongoDB.getCollection(COLLECTION_VERTICES).find(new Document(MongoDBConstants.FIELD_ID, 2));
+        MongoDBVertex plane = new MongoDBVertex(cursor.iterator().next(), graphDB);
+        
+        // The adjacent vertices come without their properties
+        List<MongoDBVertex> adjacent = new ArrayList<MongoDBVertex>();
+        for (Vertex vertex : plane.getVertices(Direction.OUT, new String[]{"flies", "maintains"})) {
+            adjacent.add((MongoDBVertex) vertex);
+        }
+        assertEquals(2, adjacent.size());
+        assertFalse(adjacent.get(0).isPropertiesLoaded());
+        assertFalse(adjacent.get(1).isPropertiesLoaded());
+        
+        vertexLabels = new ArrayList<String>();
+        for (MongoDBVertex vertex : adjacent) {
+            vertexLabels.add((String) vertex.getProperty("name"));
+        }
+        assertTrue(vertexLabels.containsAll(Arrays.asList("pilot", "mechanic")));
+    }
+    
     /**
      * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBVertex#getLabel()}.
      */
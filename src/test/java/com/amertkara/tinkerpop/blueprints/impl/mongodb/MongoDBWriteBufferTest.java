@@ -0,0 +1,195 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amertkara.tinkerpop.blueprints.impl.mongodb;
+
+import org.bson.Document;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amertkara.tinkerpop.blueprints.impl.mongodb.embedded.InMemoryMongoDB;
+import com.mongodb.MongoException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Mert Kara (https://github.com/amertkara)
+ * @since 0.1.0
+ */
+public class MongoDBWriteBufferTest extends InMemoryMongoDB {
+    private MongoDBGraph graphDB;
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @SuppressWarnings("boxing")
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        graphDB = new MongoDBGraph(HOST, PORT, DB_NAME, COLLECTION_EDGES, COLLECTION_VERTICES);
+        graphDB.enableWriteBehind(2, 0);
+        // Insert vertices via MongoDB API
+        for (int i = 1; i <= 3; i++) {
+            this.mongoDB.getCollection(COLLECTION_VERTICES).insertOne(new Document(MongoDBConstants.FIELD_ID, i).append(MongoDBConstants.FIELD_PROPERTIES, new Document("name", "v" + i)));
+        }
+    }
+
+    /**
+     * @throws java.lang.Exception void
+     */
+    @After
+    public void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBWriteBuffer#flush()}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testFlush() {
+        MongoDBVertex vertex = (MongoDBVertex) graphDB.getVertex(1);
+        for (int i = 0; i < 10; i++) {
+            vertex.setProperty("count", i);
+        }
+        vertex.setProperty("name", "renamed");
+        
+        // Visible through the element, not in the database
+        assertEquals(Integer.valueOf(9), vertex.getProperty("count"));
+        assertEquals(1, graphDB.getWriteBuffer().pendingCount());
+        assertNull(properties(1).get("count"));
+        
+        // A single update for the element
+        assertEquals(1, graphDB.flush());
+        assertEquals(0, graphDB.getWriteBuffer().pendingCount());
+        assertEquals(9, properties(1).get("count"));
+        assertEquals("renamed", properties(1).get("name"));
+        assertEquals(0, graphDB.flush());
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBWriteBuffer#removeProperty(com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBElement, java.lang.String)}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testRemoveProperty() {
+        MongoDBVertex vertex = (MongoDBVertex) graphDB.getVertex(1);
+        vertex.setProperty("age", 30);
+        vertex.removeProperty("age");
+        vertex.removeProperty("name");
+        graphDB.flush();
+        
+        assertFalse(properties(1).containsKey("age"));
+        assertFalse(properties(1).containsKey("name"));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBWriteBuffer#getMaxPendingElements()}.
+     */
+    @Test
+    public void testMaxPendingElements() {
+        graphDB.getVertex(1).setProperty("key", "val1");
+        graphDB.getVertex(2).setProperty("key", "val2");
+        
+        // The second element fills the buffer
+        assertEquals(0, graphDB.getWriteBuffer().pendingCount());
+        assertEquals("val1", properties(1).get("key"));
+        assertEquals("val2", properties(2).get("key"));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBWriteBuffer#discard(com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBElement)}.
+     */
+    @Test
+    public void testDiscard() {
+        MongoDBVertex vertex = (MongoDBVertex) graphDB.getVertex(3);
+        vertex.setProperty("key", "val");
+        vertex.remove();
+        
+        assertEquals(0, graphDB.getWriteBuffer().pendingCount());
+        assertEquals(0, graphDB.flush());
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBWriteBuffer#flush()}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testFlushFailure() {
+        MongoDBVertex vertex = (MongoDBVertex) graphDB.getVertex(1);
+        // $set of properties.* fails while the properties aren't a document
+        this.mongoDB.getCollection(COLLECTION_VERTICES).updateOne(new Document(MongoDBConstants.FIELD_ID, 1), new Document("$set", new Document(MongoDBConstants.FIELD_PROPERTIES, "broken")));
+        vertex.setProperty("key", "old");
+        vertex.setProperty("other", "val");
+        try {
+            graphDB.flush();
+            fail("The flush should have failed.");
+        } catch (MongoException e) {
+            // The updates are kept
+            assertEquals(1, graphDB.getWriteBuffer().pendingCount());
+        }
+        
+        // Newer writes win over the requeued ones
+        vertex.setProperty("key", "new");
+        vertex.removeProperty("other");
+        this.mongoDB.getCollection(COLLECTION_VERTICES).updateOne(new Document(MongoDBConstants.FIELD_ID, 1), new Document("$set", new Document(MongoDBConstants.FIELD_PROPERTIES, new Document())));
+        assertEquals(1, graphDB.flush());
+        assertEquals("new", properties(1).get("key"));
+        assertFalse(properties(1).containsKey("other"));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBWriteBuffer#setProperty(com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBElement, java.lang.String, java.lang.Object)}.
+     */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testNormalizedIds() {
+        new MongoDBVertex(new Document(MongoDBConstants.FIELD_ID, 2), graphDB).setProperty("int", 1);
+        new MongoDBVertex(new Document(MongoDBConstants.FIELD_ID, 2L), graphDB).setProperty("long", 2);
+        
+        // One update for both ids
+        assertEquals(1, graphDB.getWriteBuffer().pendingCount());
+        assertEquals(1, graphDB.flush());
+        assertEquals(1, properties(2).get("int"));
+        assertEquals(2, properties(2).get("long"));
+    }
+    
+    /**
+     * Test method for {@link com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBGraph#disableWriteBehind()}.
+     */
+    @Test
+    public void testDisableWriteBehind() {
+        graphDB.getVertex(1).setProperty("key", "val");
+        graphDB.disableWriteBehind();
+        
+        assertNull(graphDB.getWriteBuffer());
+        assertEquals("val", properties(1).get("key"));
+        
+        // Back to writing through
+        graphDB.getVertex(2).setProperty("key", "val");
+        assertEquals("val", properties(2).get("key"));
+    }
+    
+    @SuppressWarnings("boxing")
+    private Document properties(int id) {
+        return (Document) this.mongoDB.getCollection(COLLECTION_VERTICES).find(new Document(MongoDBConstants.FIELD_ID, id)).first().get(MongoDBConstants.FIELD_PROPERTIES);
+    }
+}
@@ -17,11 +17,22 @@
  */
 package com.amertkara.tinkerpop.blueprints.impl.mongodb.embedded;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.bson.Document;
 import org.junit.After;
 import org.junit.Before;
 
+import com.amertkara.tinkerpop.blueprints.impl.mongodb.MongoDBConstants;
+import com.mongodb.DBRef;
 import com.mongodb.MongoClient;
 import com.mongodb.client.MongoDatabase;
+import com.tinkerpop.blueprints.Element;
 
 /**
  * @author Mert Kara (https://github.com/amertkara)
@@ -56,4 +67,72 @@ public class InMemoryMongoDB {
     public void tearDown() throws Exception {
         mongoClient.dropDatabase(DB_NAME);
     }
+    
+    /**
+     * Inserts a binary tree via the MongoDB API, for the traversal tests:
+     * vertex i knows 2i and 2i + 1 up to 15, 15 likes 1.
+     */
+    @SuppressWarnings("boxing")
+    protected void insertBinaryTree() {
+        int edgeId = 1;
+        for (int i = 1; i <= 15; i++) {
+            this.mongoDB.getCollection(COLLECTION_VERTICES).insertOne(new Document(MongoDBConstants.FIELD_ID, i));
+            if (i > 1) {
+                this.mongoDB.getCollection(COLLECTION_EDGES).insertOne(new Document(MongoDBConstants.FIELD_ID, edgeId++)
+                .append(MongoDBConstants.FIELD_LABEL, "knows")
+                .append(MongoDBConstants.FIELD_OUTV, new DBRef(COLLECTION_VERTICES, i / 2))
+                .append(MongoDBConstants.FIELD_INV, new DBRef(COLLECTION_VERTICES, i)));
+            }
+        }
+        this.mongoDB.getCollection(COLLECTION_EDGES).insertOne(new Document(MongoDBConstants.FIELD_ID, edgeId)
+        .append(MongoDBConstants.FIELD_LABEL, "likes")
+        .append(MongoDBConstants.FIELD_OUTV, new DBRef(COLLECTION_VERTICES, 15))
+        .append(MongoDBConstants.FIELD_INV, new DBRef(COLLECTION_VERTICES, 1)));
+    }
+    
+    /**
+     * @param ids ids or elements
+     * @return the ids as longs, whether they are int32 or int64
+     */
+    protected static Set<Long> longIds(final Object... ids) {
+        return longIds(Arrays.asList(ids));
+    }
+    
+    /**
+     * @param ids ids or elements
+     * @return the ids as longs, whether they are int32 or int64
+     */
+    protected static Set<Long> longIds(final Iterable<?> ids) {
+        Set<Long> set = new HashSet<Long>();
+        for (Object id : ids) {
+            set.add(longId(id));
+        }
+        return set;
+    }
+    
+    /**
+     * @param ids ids or elements
+     * @return the ids as longs in ascending order, duplicates included
+     */
+    protected static List<Long> sortedIds(final Object... ids) {
+        return sortedIds(Arrays.asList(ids));
+    }
+    
+    /**
+     * @param ids ids or elements
+     * @return the ids as longs in ascending order, duplicates included
+     */
+    protected static List<Long> sortedIds(final Iterable<?> ids) {
+        List<Long> list = new ArrayList<Long>();
+        for (Object id : ids) {
+            list.add(longId(id));
+        }
+        Collections.sort(list);
+        return list;
+    }
+    
+    private static Long longId(final Object id) {
+        Object value = id instanceof Element ? ((Element) id).getId() : id;
+        return Long.valueOf(((Number) value).longValue());
+    }
 }